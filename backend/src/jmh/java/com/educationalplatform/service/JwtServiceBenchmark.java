@@ -0,0 +1,69 @@
+package com.educationalplatform.service;
+
+import com.educationalplatform.domain.model.User;
+import com.educationalplatform.utils.JwtPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tokens verified per second: the cached key and parser of {@link JwtService#verify}, the
+ * digest lookup of {@link VerifiedTokenCache} in front of it, and the previous per-call key
+ * decoding and parser construction as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtServiceBenchmark {
+
+  private static final String SECRET = "53A73E5F1C4E0A2D3B5F2D784E6A1B423D6F247D1F6E5C3A596D635A75327855";
+
+  private JwtService jwtService;
+  private VerifiedTokenCache tokenCache;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtService = new JwtService(SECRET, TimeUnit.DAYS.toMillis(1));
+    tokenCache = new VerifiedTokenCache(10_000, 300, new SimpleMeterRegistry());
+    token = jwtService.generateToken(User.builder()
+        .id(UUID.randomUUID())
+        .role(User.Role.USER)
+        .build());
+  }
+
+  @Benchmark
+  public Claims rebuildKeyAndParser() {
+    return Jwts.parser()
+        .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+        .build()
+        .parseSignedClaims(token)
+        .getPayload();
+  }
+
+  @Benchmark
+  public Optional<JwtPrincipal> verify() {
+    return jwtService.verify(token);
+  }
+
+  @Benchmark
+  public Optional<JwtPrincipal> verifyThroughTokenCache() {
+    return tokenCache.verify(token, jwtService::verify);
+  }
+}
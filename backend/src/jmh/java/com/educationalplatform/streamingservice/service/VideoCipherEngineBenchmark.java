@@ -0,0 +1,80 @@
+package com.educationalplatform.streamingservice.service;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Шифрование чанка в 1 МиБ: прежний путь CBC (новый {@link Cipher} и ключ из Base64 на каждый
+ * вызов) и {@link VideoCipherEngine} в режимах CBC, CTR и GCM. Одна операция — один чанк,
+ * так что ops/s совпадает с МиБ/с.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VideoCipherEngineBenchmark {
+
+  private static final int CHUNK_SIZE = 1024 * 1024;
+
+  private byte[] chunk;
+  private String key;
+  private byte[] cbcIv;
+
+  @State(Scope.Thread)
+  public static class Engine {
+
+    @Param({"CBC", "CTR", "GCM"})
+    public String mode;
+
+    private VideoCipherEngine engine;
+    private byte[] iv;
+
+    @Setup
+    public void setUp() {
+      engine = new VideoCipherEngine(mode, 1024);
+      iv = new byte[engine.getMode().getIvLength()];
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    SecureRandom random = new SecureRandom();
+    chunk = new byte[CHUNK_SIZE];
+    random.nextBytes(chunk);
+    byte[] keyBytes = new byte[32];
+    random.nextBytes(keyBytes);
+    key = Base64.getEncoder().encodeToString(keyBytes);
+    cbcIv = new byte[16];
+  }
+
+  @Benchmark
+  public byte[] cbcPerCall() throws GeneralSecurityException {
+    Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+    cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(Base64.getDecoder().decode(key), "AES"),
+        new IvParameterSpec(cbcIv));
+    return cipher.doFinal(chunk);
+  }
+
+  @Benchmark
+  public byte[] engine(Engine state) throws GeneralSecurityException {
+    // GCM не допускает повторного IV с тем же ключом, поэтому IV меняется на каждой операции
+    state.iv[0]++;
+    return state.engine.encrypt(chunk, key, state.iv);
+  }
+}
@@ -0,0 +1,112 @@
+package com.educationalplatform.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Limits the number of concurrent outbound calls of one client. A call that cannot get a permit
+ * within the acquire timeout fails with an {@link IOException}, which RestTemplate reports as a
+ * {@link org.springframework.web.client.ResourceAccessException}, like a connect timeout.
+ * The permit is held until the response has been read.
+ */
+public class BulkheadInterceptor implements ClientHttpRequestInterceptor {
+
+  private final String name;
+  private final int maxConcurrentCalls;
+  private final Semaphore permits;
+  private final long acquireTimeoutMillis;
+  private final Counter rejected;
+
+  public BulkheadInterceptor(String name, int maxConcurrentCalls, long acquireTimeoutMillis,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.maxConcurrentCalls = maxConcurrentCalls;
+    this.permits = new Semaphore(maxConcurrentCalls, true);
+    this.acquireTimeoutMillis = acquireTimeoutMillis;
+    this.rejected = Counter.builder("http.client.bulkhead.rejected").tag("client", name).register(meterRegistry);
+    Gauge.builder("http.client.bulkhead.active", permits, p -> maxConcurrentCalls - p.availablePermits())
+        .tag("client", name)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+      throws IOException {
+    try {
+      if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        rejected.increment();
+        throw new IOException("Too many concurrent " + name + " calls (limit " + maxConcurrentCalls + ")");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a " + name + " call permit", e);
+    }
+
+    ClientHttpResponse response;
+    try {
+      response = execution.execute(request, body);
+    } catch (IOException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+    return new ReleasingResponse(response, permits);
+  }
+
+  /**
+   * Returns the permit when RestTemplate closes the response after extracting the body.
+   */
+  private static final class ReleasingResponse implements ClientHttpResponse {
+
+    private final ClientHttpResponse delegate;
+    private final Semaphore permits;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private ReleasingResponse(ClientHttpResponse delegate, Semaphore permits) {
+      this.delegate = delegate;
+      this.permits = permits;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() throws IOException {
+      return delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return delegate.getHeaders();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      return delegate.getBody();
+    }
+
+    @Override
+    public void close() {
+      try {
+        delegate.close();
+      } finally {
+        if (released.compareAndSet(false, true)) {
+          permits.release();
+        }
+      }
+    }
+  }
+}
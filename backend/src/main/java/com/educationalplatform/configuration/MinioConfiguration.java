@@ -1,6 +1,12 @@
 package com.educationalplatform.configuration;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,11 +23,47 @@ public class MinioConfiguration {
   @Value("${minio.secret-key}")
   private String secretKey;
 
+  /**
+   * HTTP client shared by the blocking and the async MinIO clients, so both draw on one
+   * connection pool. The dispatcher limits apply to async calls; the OkHttp default of five
+   * requests per host would serialize parallel multipart uploads.
+   */
   @Bean
-  public MinioClient minioClient() {
+  public OkHttpClient minioHttpClient(
+      @Value("${storage.http.max-idle-connections:32}") int maxIdleConnections,
+      @Value("${storage.http.keep-alive-seconds:300}") long keepAliveSeconds,
+      @Value("${storage.http.max-requests:128}") int maxRequests,
+      @Value("${storage.http.connect-timeout-ms:5000}") long connectTimeoutMillis,
+      @Value("${storage.http.read-timeout-ms:60000}") long readTimeoutMillis,
+      @Value("${storage.http.write-timeout-ms:60000}") long writeTimeoutMillis) {
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(maxRequests);
+    dispatcher.setMaxRequestsPerHost(maxRequests);
+    return new OkHttpClient.Builder()
+      .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+      .dispatcher(dispatcher)
+      .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+      .readTimeout(Duration.ofMillis(readTimeoutMillis))
+      .writeTimeout(Duration.ofMillis(writeTimeoutMillis))
+      .retryOnConnectionFailure(true)
+      .build();
+  }
+
+  @Bean
+  public MinioClient minioClient(OkHttpClient minioHttpClient) {
     return MinioClient.builder()
       .endpoint(endpoint)
       .credentials(accessKey, secretKey)
+      .httpClient(minioHttpClient)
       .build();
   }
-}
\ No newline at end of file
+
+  @Bean
+  public MinioMultipartClient minioMultipartClient(OkHttpClient minioHttpClient) {
+    return new MinioMultipartClient(MinioAsyncClient.builder()
+      .endpoint(endpoint)
+      .credentials(accessKey, secretKey)
+      .httpClient(minioHttpClient)
+      .build());
+  }
+}
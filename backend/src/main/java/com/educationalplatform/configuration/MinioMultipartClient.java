@@ -0,0 +1,86 @@
+package com.educationalplatform.configuration;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/** Exposes MinIO's multipart upload calls so parts can be uploaded in parallel. */
+public class MinioMultipartClient extends MinioAsyncClient {
+
+  private static final Multimap<String, String> NO_PARAMS = ImmutableMultimap.of();
+  private static final int LIST_PARTS_PAGE = 1000;
+
+  public MinioMultipartClient(MinioAsyncClient client) {
+    super(client);
+  }
+
+  public CompletableFuture<String> startUpload(String bucket, String object, String contentType) {
+    Multimap<String, String> headers = contentType != null
+        ? ImmutableMultimap.of("Content-Type", contentType)
+        : NO_PARAMS;
+    try {
+      return createMultipartUploadAsync(bucket, null, object, headers, NO_PARAMS)
+          .thenApply(response -> response.result().uploadId());
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  public CompletableFuture<Part> uploadPart(String bucket, String object, String uploadId, int partNumber,
+      byte[] data, int length) {
+    try {
+      return uploadPartAsync(bucket, null, object, data, length, uploadId, partNumber, NO_PARAMS, NO_PARAMS)
+          .thenApply(response -> new Part(partNumber, response.etag()));
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  public CompletableFuture<Void> completeUpload(String bucket, String object, String uploadId, Part[] parts) {
+    try {
+      return completeMultipartUploadAsync(bucket, null, object, uploadId, parts, NO_PARAMS, NO_PARAMS)
+          .thenApply(response -> null);
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  public CompletableFuture<Void> abortUpload(String bucket, String object, String uploadId) {
+    try {
+      return abortMultipartUploadAsync(bucket, null, object, uploadId, NO_PARAMS, NO_PARAMS)
+          .thenApply(response -> null);
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Returns every part already stored for the upload, following the listing pages.
+   */
+  public CompletableFuture<List<Part>> listUploadedParts(String bucket, String object, String uploadId) {
+    return listUploadedParts(bucket, object, uploadId, null, new ArrayList<>());
+  }
+
+  private CompletableFuture<List<Part>> listUploadedParts(String bucket, String object, String uploadId,
+      Integer marker, List<Part> collected) {
+    try {
+      return listPartsAsync(bucket, null, object, LIST_PARTS_PAGE, marker, uploadId, NO_PARAMS, NO_PARAMS)
+          .thenCompose(response -> {
+            ListPartsResult result = response.result();
+            collected.addAll(result.partList());
+            if (result.isTruncated()) {
+              return listUploadedParts(bucket, object, uploadId, result.nextPartNumberMarker(), collected);
+            }
+            return CompletableFuture.completedFuture(collected);
+          });
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
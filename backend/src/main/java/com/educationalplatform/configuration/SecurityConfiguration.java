@@ -1,9 +1,11 @@
 package com.educationalplatform.configuration;
 
 import com.educationalplatform.filter.JwtCookieAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -16,6 +18,12 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -27,8 +35,14 @@ public class SecurityConfiguration {
   @Bean
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
     http
-        .headers(headers -> headers.frameOptions(HeadersConfigurer.FrameOptionsConfig::disable))
+        .headers(headers -> headers
+            .frameOptions(HeadersConfigurer.FrameOptionsConfig::disable)
+            .cacheControl(HeadersConfigurer.CacheControlConfig::disable)
+            .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                new NegatedRequestMatcher(cacheableMedia()), new CacheControlHeadersWriter())))
         .authorizeHttpRequests(auth -> auth
+            // The async re-dispatch of a response was already authorized on the original request
+            .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
             .requestMatchers("/api/auth/**").permitAll()
             .requestMatchers("/api/swagger-ui/**", "/api/api-docs/**").permitAll()
             .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -40,6 +54,14 @@ public class SecurityConfiguration {
     return http.build();
   }
 
+  /** Media responses that set their own Cache-Control. */
+  private static RequestMatcher cacheableMedia() {
+    PathPatternRequestMatcher.Builder paths = PathPatternRequestMatcher.withDefaults();
+    return new OrRequestMatcher(
+        paths.matcher(HttpMethod.GET, "/api/blocks/*/image"),
+        paths.matcher(HttpMethod.GET, "/api/v1/videos/*/stream"),
+        paths.matcher(HttpMethod.GET, "/api/v1/videos/*/hls/*"));
+  }
 
   @Bean
   public PasswordEncoder passwordEncoder() {
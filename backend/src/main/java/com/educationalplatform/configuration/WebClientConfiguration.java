@@ -1,14 +1,43 @@
 package com.educationalplatform.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class WebClientConfiguration {
 
+  /**
+   * Client for the VK ID API. The JDK client keeps connections alive between calls, so a login
+   * does not open a new TLS connection per request, and every call is bounded by the connect
+   * and read timeouts and by the bulkhead. Built from {@link RestTemplateBuilder}, so calls are
+   * timed per URI as {@code http.client.requests}.
+   */
   @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  public RestTemplate restTemplate(
+      RestTemplateBuilder builder,
+      MeterRegistry meterRegistry,
+      @Value("${vk.http.connect-timeout-ms:3000}") long connectTimeoutMillis,
+      @Value("${vk.http.read-timeout-ms:5000}") long readTimeoutMillis,
+      @Value("${vk.http.max-concurrent-calls:32}") int maxConcurrentCalls,
+      @Value("${vk.http.acquire-timeout-ms:500}") long acquireTimeoutMillis) {
+    HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+    requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+
+    return builder
+        .requestFactory(() -> requestFactory)
+        .additionalInterceptors(
+            new BulkheadInterceptor("vk", maxConcurrentCalls, acquireTimeoutMillis, meterRegistry))
+        .build();
   }
 }
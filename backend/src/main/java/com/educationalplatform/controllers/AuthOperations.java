@@ -1,6 +1,6 @@
 package com.educationalplatform.controllers;
 
-import com.educationalplatform.domain.model.User;
+import com.educationalplatform.utils.JwtPrincipal;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -31,5 +31,5 @@ public interface AuthOperations {
 
   @Operation(summary = "Зарегался ли пользователь?")
   @GetMapping("/status")
-  ResponseEntity<Map<String, Boolean>> getUserAuthStatus(@AuthenticationPrincipal User user);
+  ResponseEntity<Map<String, Boolean>> getUserAuthStatus(@AuthenticationPrincipal JwtPrincipal user);
 }
@@ -2,14 +2,18 @@ package com.educationalplatform.controllers;
 
 import com.educationalplatform.domain.dto.response.BlockResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.MediaType;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "Available Blocks", description = "API для работы с блоками")
 @RequestMapping("/api/blocks")
@@ -19,6 +23,12 @@ public interface BlockOperations {
   ResponseEntity<List<BlockResponse>> getAllAvailableBlocks();
 
   @Operation(summary = "Получить изображение опубликованного блока")
-  @GetMapping(value = "/{blockId}/image", produces = MediaType.IMAGE_JPEG_VALUE)
-  ResponseEntity<InputStreamResource> getBlockImage(@PathVariable Long blockId);
+  @GetMapping("/{blockId}/image")
+  CompletableFuture<ResponseEntity<StreamingResponseBody>> getBlockImage(
+      @PathVariable Long blockId,
+      @Parameter(description = "Желаемая ширина в пикселях; отдаётся ближайший больший размер")
+      @RequestParam(value = "w", required = false) Integer width,
+      @Parameter(description = "Версия изображения из imageVersion блока; с ней ответ кэшируется надолго")
+      @RequestParam(value = "v", required = false) String version,
+      @Parameter(hidden = true) @RequestHeader HttpHeaders headers);
 }
@@ -1,8 +1,8 @@
 package com.educationalplatform.controllers.impl;
 
 import com.educationalplatform.controllers.AuthOperations;
-import com.educationalplatform.domain.model.User;
 import com.educationalplatform.service.AuthService;
+import com.educationalplatform.utils.JwtPrincipal;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -38,7 +38,7 @@ public class AuthController implements AuthOperations {
   }
 
   @Override
-  public ResponseEntity<Map<String, Boolean>> getUserAuthStatus(User user) {
+  public ResponseEntity<Map<String, Boolean>> getUserAuthStatus(JwtPrincipal user) {
     Map<String, Boolean> result = Map.of("status", Boolean.TRUE);
     if (user == null) {
       result = Map.of("status", Boolean.FALSE);
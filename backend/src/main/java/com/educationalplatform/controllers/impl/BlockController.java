@@ -2,19 +2,31 @@ package com.educationalplatform.controllers.impl;
 
 import com.educationalplatform.controllers.BlockOperations;
 import com.educationalplatform.domain.dto.response.BlockResponse;
+import com.educationalplatform.domain.dto.response.StoredFile;
+import com.educationalplatform.domain.model.Block;
+import com.educationalplatform.domain.model.StoredObject;
 import com.educationalplatform.service.BlockService;
 import java.io.InputStream;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
 public class BlockController implements BlockOperations {
 
+  private static final CacheControl VERSIONED = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+  private static final CacheControl REVALIDATED = CacheControl.noCache().cachePrivate();
+
   private final BlockService blockService;
 
   @Override
@@ -23,11 +35,43 @@ public class BlockController implements BlockOperations {
   }
 
   @Override
-  public ResponseEntity<InputStreamResource> getBlockImage(Long blockId) {
-    InputStream imageStream = blockService.getBlockImage(blockId);
+  public CompletableFuture<ResponseEntity<StreamingResponseBody>> getBlockImage(Long blockId, Integer width,
+      String version, HttpHeaders headers) {
+    return blockService.getBlockImage(blockId, width, headers.getIfNoneMatch(), headers.getIfModifiedSince())
+        .thenApply(image -> toImageResponse(image, cacheControl(image.object(), width, version)));
+  }
+
+  /**
+   * A versioned URL changes with every new image, so its content never changes, as long as the
+   * version is the current one and the response is what the URL names. A resized request is
+   * answered with the original when no variant can be produced, which must stay revalidated.
+   */
+  private static CacheControl cacheControl(StoredObject served, Integer width, String version) {
+    String imageKey = width != null ? served.getSourceKey() : served.getObjectKey();
+    boolean current = version != null && imageKey != null && version.equals(Block.imageVersion(imageKey));
+    return current ? VERSIONED : REVALIDATED;
+  }
+
+  private static ResponseEntity<StreamingResponseBody> toImageResponse(StoredFile image, CacheControl cacheControl) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(image.object().entityTag());
+    if (image.object().getCreatedAt() != null) {
+      headers.setLastModified(image.object().getCreatedAt().atZone(ZoneId.systemDefault()));
+    }
+    headers.setCacheControl(cacheControl);
+    if (image.isNotModified()) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+    }
 
+    String contentType = image.object().getContentType();
     return ResponseEntity.ok()
-        .contentType(MediaType.IMAGE_JPEG)
-        .body(new InputStreamResource(imageStream));
+        .headers(headers)
+        .contentType(contentType != null ? MediaType.parseMediaType(contentType) : MediaType.IMAGE_JPEG)
+        .contentLength(image.object().getSize())
+        .body(out -> {
+          try (InputStream content = image.content()) {
+            content.transferTo(out);
+          }
+        });
   }
 }
@@ -14,6 +14,7 @@ public class BlockResponse {
   private Integer sortOrder;
   private Boolean isAvailable;
   private Long testId;
+  private String imageVersion;
 
   public static BlockResponse fromEntity(Block block) {
     BlockResponse r = new BlockResponse();
@@ -22,6 +23,7 @@ public class BlockResponse {
     r.sortOrder = block.getSortOrder();
     r.isAvailable = block.getIsAvailable();
     r.testId = block.getTest() != null ? block.getTest().getId() : null;
+    r.imageVersion = block.imageVersion();
     return r;
   }
 }
@@ -0,0 +1,19 @@
+package com.educationalplatform.domain.dto.response;
+
+import com.educationalplatform.domain.model.StoredObject;
+import java.io.InputStream;
+
+/**
+ * Content of a stored object together with the attributes recorded at upload time. The
+ * content is {@code null} when the client already holds the current version.
+ */
+public record StoredFile(StoredObject object, InputStream content) {
+
+  public static StoredFile notModified(StoredObject object) {
+    return new StoredFile(object, null);
+  }
+
+  public boolean isNotModified() {
+    return content == null;
+  }
+}
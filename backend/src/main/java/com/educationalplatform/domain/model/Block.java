@@ -10,11 +10,13 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import java.nio.charset.StandardCharsets;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.util.DigestUtils;
 
 @Entity
 @Builder
@@ -47,7 +49,25 @@ public class Block {
   @Builder.Default
   private Boolean hasVideo = false;
 
+  @Column(name = "image_key", length = 500)
+  private String imageKey;
+
+  @Column(name = "video_key", length = 500)
+  private String videoKey;
+
   @Column(name = "is_available")
   @Builder.Default
   private Boolean isAvailable = false;
+
+  /**
+   * Short digest of the image key. Every upload gets a new key, so the version changes with
+   * the image and can be put into the image URL to make it cacheable indefinitely.
+   */
+  public String imageVersion() {
+    return imageKey != null ? imageVersion(imageKey) : null;
+  }
+
+  public static String imageVersion(String imageKey) {
+    return DigestUtils.md5DigestAsHex(imageKey.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+  }
 }
@@ -0,0 +1,65 @@
+package com.educationalplatform.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Exact key and attributes of an uploaded storage object, recorded at upload time so reads
+ * need no listing or stat call.
+ */
+@Entity
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stored_objects")
+public class StoredObject {
+
+  @Id
+  @Column(name = "object_key", length = 500)
+  private String objectKey;
+
+  @Column(name = "size", nullable = false)
+  private Long size;
+
+  @Column(name = "content_type")
+  private String contentType;
+
+  @Column(name = "etag")
+  private String etag;
+
+  /**
+   * Key of the original this object was derived from, for resized image variants.
+   */
+  @Column(name = "source_key", length = 500)
+  private String sourceKey;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  /**
+   * Quoted HTTP entity tag. Objects recorded without a storage ETag fall back to a digest of
+   * the key, which is never reused for other content.
+   */
+  public String entityTag() {
+    String tag = etag != null ? etag : DigestUtils.md5DigestAsHex(objectKey.getBytes(StandardCharsets.UTF_8));
+    return "\"" + tag + "\"";
+  }
+
+  @PrePersist
+  protected void onCreate() {
+    createdAt = LocalDateTime.now();
+  }
+}
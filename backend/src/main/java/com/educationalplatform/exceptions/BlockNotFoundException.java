@@ -9,4 +9,8 @@ public class BlockNotFoundException extends RuntimeException {
   public BlockNotFoundException() {
     super("Block not found");
   }
+
+  public BlockNotFoundException(String message) {
+    super(message);
+  }
 }
@@ -13,6 +13,7 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 @Slf4j
@@ -61,6 +62,12 @@ public class GlobalExceptionHandler {
     return buildResponseEntity(HttpStatus.NOT_FOUND, "Страница не найдена", request.getRequestURI());
   }
 
+  @ExceptionHandler(ResourceAccessException.class)
+  public ResponseEntity<Object> handleResourceAccessException(ResourceAccessException ex, HttpServletRequest request) {
+    log.error("External service call failed: {}", ex.getMessage());
+    return buildResponseEntity(HttpStatus.SERVICE_UNAVAILABLE, "Внешний сервис недоступен", request.getRequestURI());
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<Object> handleAllUncaughtException(Exception ex, HttpServletRequest request) {
     log.error("Unhandled exception occurred", ex);
@@ -3,7 +3,9 @@ package com.educationalplatform.filter;
 import com.educationalplatform.domain.model.User;
 import com.educationalplatform.service.JwtService;
 import com.educationalplatform.service.UserService;
+import com.educationalplatform.service.VerifiedTokenCache;
 import com.educationalplatform.utils.IdAuthenticationToken;
+import com.educationalplatform.utils.JwtPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -14,7 +16,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -34,6 +35,7 @@ public class JwtCookieAuthenticationFilter extends OncePerRequestFilter {
   private String jwtName;
 
   private final JwtService jwtService;
+  private final VerifiedTokenCache tokenCache;
   private final UserService usersService;
 
   @Override
@@ -53,21 +55,7 @@ public class JwtCookieAuthenticationFilter extends OncePerRequestFilter {
         if (jwtCookie.isPresent()) {
           String token = jwtCookie.get().getValue();
 
-          UUID userId = jwtService.extractUserId(token);
-          Optional<User> userOptional = usersService.findById(userId);
-
-          if (userOptional.isPresent()) {
-            User user = userOptional.get();
-
-            Collection<GrantedAuthority> authorities = List.of(
-                new SimpleGrantedAuthority("ROLE_" + user.getRole().name())
-            );
-
-            IdAuthenticationToken authToken =
-                new IdAuthenticationToken(user, authorities);
-
-            SecurityContextHolder.getContext().setAuthentication(authToken);
-          }
+          tokenCache.verify(token, jwtService::verify).ifPresent(this::authenticate);
         }
       }
 
@@ -76,4 +64,26 @@ public class JwtCookieAuthenticationFilter extends OncePerRequestFilter {
     }
     filterChain.doFilter(request, response);
   }
+
+  /**
+   * The principal comes from the signed claims; the status and the role come from the user row,
+   * read through the user cache, which {@link UserService#updateUser} evicts, so a block or a
+   * role change takes effect immediately even for long-lived tokens.
+   */
+  private void authenticate(JwtPrincipal principal) {
+    Optional<User> user = usersService.findCachedById(principal.userId());
+    if (user.isEmpty() || user.get().getStatus() == User.Status.BLOCKED) {
+      return;
+    }
+    User.Role role = user.get().getRole();
+
+    Collection<GrantedAuthority> authorities = List.of(
+        new SimpleGrantedAuthority("ROLE_" + role.name())
+    );
+
+    IdAuthenticationToken authToken =
+        new IdAuthenticationToken(principal, authorities);
+
+    SecurityContextHolder.getContext().setAuthentication(authToken);
+  }
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.educationalplatform.repository;
 
 import com.educationalplatform.domain.model.Block;
+import jakarta.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface BlockRepository extends JpaRepository<Block, Long> {
 
@@ -11,4 +16,25 @@ public interface BlockRepository extends JpaRepository<Block, Long> {
 
   @Query("SELECT COALESCE(MAX(b.sortOrder), 0) FROM Block b")
   int findMaxSortOrder();
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT b FROM Block b WHERE b.id = :id")
+  Optional<Block> findByIdForUpdate(Long id);
+
+  @Query("SELECT COUNT(b) > 0 FROM Block b WHERE b.imageKey = :key OR b.videoKey = :key")
+  boolean isObjectReferenced(String key);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE Block b SET b.imageKey = :key WHERE b.id = :id AND b.imageKey IS NULL")
+  int setImageKeyIfAbsent(Long id, String key);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE Block b SET b.videoKey = :key WHERE b.id = :id AND b.videoKey IS NULL")
+  int setVideoKeyIfAbsent(Long id, String key);
+
+  @Query("SELECT b FROM Block b WHERE (b.hasImage = true AND b.imageKey IS NULL)"
+      + " OR (b.hasVideo = true AND b.videoKey IS NULL)")
+  List<Block> findWithUnindexedMedia();
 }
@@ -0,0 +1,19 @@
+package com.educationalplatform.repository;
+
+import com.educationalplatform.domain.model.StorageOutboxEntry;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface StorageOutboxRepository extends JpaRepository<StorageOutboxEntry, Long> {
+
+  List<StorageOutboxEntry> findTop100ByDueAtBeforeOrderByDueAt(LocalDateTime now);
+
+  List<StorageOutboxEntry> findByObjectKey(String objectKey);
+
+  @Modifying
+  @Query("DELETE FROM StorageOutboxEntry e WHERE e.objectKey = :objectKey")
+  int deleteByObjectKey(String objectKey);
+}
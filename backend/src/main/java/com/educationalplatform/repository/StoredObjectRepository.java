@@ -0,0 +1,18 @@
+package com.educationalplatform.repository;
+
+import com.educationalplatform.domain.model.StoredObject;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+
+  List<StoredObject> findBySourceKey(String sourceKey);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT o FROM StoredObject o WHERE o.objectKey = :key")
+  Optional<StoredObject> findByIdForUpdate(String key);
+}
@@ -1,10 +1,25 @@
 package com.educationalplatform.repository;
 
 import com.educationalplatform.domain.model.VkAuthState;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface VkAuthStateRepository extends JpaRepository<VkAuthState, String> {
-  Optional<VkAuthState> findByState(String state);
-  void deleteByState(String state);
+
+  /**
+   * Deletes the state if it was created after {@code notBefore} and returns its code verifier.
+   */
+  @Query(value = "DELETE FROM vk_auth_states WHERE state = :state AND created_at > :notBefore "
+      + "RETURNING code_verifier", nativeQuery = true)
+  Optional<String> take(String state, LocalDateTime notBefore);
+
+  @Transactional
+  @Modifying
+  @Query(value = "DELETE FROM vk_auth_states WHERE state IN "
+      + "(SELECT state FROM vk_auth_states WHERE created_at < :cutoff LIMIT :limit)", nativeQuery = true)
+  int deleteExpired(LocalDateTime cutoff, int limit);
 }
@@ -1,10 +1,8 @@
 package com.educationalplatform.service;
 
 import com.educationalplatform.domain.model.User;
-import com.educationalplatform.domain.model.VkAuthState;
 import com.educationalplatform.exceptions.VkAuthException;
 import com.educationalplatform.repository.UserRepository;
-import com.educationalplatform.repository.VkAuthStateRepository;
 import java.net.URLEncoder;
 import java.util.Base64;
 import java.util.Map;
@@ -16,7 +14,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseCookie;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
@@ -33,9 +30,9 @@ import java.time.Duration;
 @RequiredArgsConstructor
 public class AuthService {
 
-  static final String AUTH_URL = "https://id.vk.ru/authorize";
-  static final String TOKEN_URL = "https://id.vk.ru/oauth2/auth";
-  static final String GET_USER_INFO_URL = "https://id.vk.ru/oauth2/user_info";
+  static final String AUTH_PATH = "/authorize";
+  static final String TOKEN_PATH = "/oauth2/auth";
+  static final String GET_USER_INFO_PATH = "/oauth2/user_info";
 
   private static final String ALLOWED_CHARS =
       "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
@@ -57,7 +54,10 @@ public class AuthService {
   @Value("${vk.redirect-uri}")
   private String redirectUri;
 
-  private final VkAuthStateRepository vkAuthStateRepository;
+  @Value("${vk.api-base-url:https://id.vk.ru}")
+  private String apiBaseUrl;
+
+  private final VkAuthStateStore vkAuthStateStore;
   private final UserRepository userRepository;
   private final JwtService jwtService;
   private final RestTemplate restTemplate;
@@ -67,14 +67,10 @@ public class AuthService {
     String codeVerifier = generateCodeVerifier();
     String codeChallenge = generateCodeChallenge(codeVerifier);
 
-    VkAuthState vkAuthState = VkAuthState.builder()
-        .state(state)
-        .codeVerifier(codeVerifier)
-        .build();
-    vkAuthStateRepository.save(vkAuthState);
+    vkAuthStateStore.save(state, codeVerifier);
 
     String uri = URLEncoder.encode(redirectUri, StandardCharsets.UTF_8);
-    UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(AUTH_URL)
+    UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(apiBaseUrl + AUTH_PATH)
         .queryParam("response_type", "code")
         .queryParam("client_id", appId)
         .queryParam("redirect_uri", uri)
@@ -92,16 +88,12 @@ public class AuthService {
     return authUrl;
   }
 
-  @Transactional
   public ResponseCookie handleCallback(String code, String state, String deviceId) {
     log.info("[VK AUTH] Received code from VK: {}, state: {}, deviceId: {}", code, state, deviceId);
 
-    VkAuthState vkAuthState = vkAuthStateRepository.findByState(state)
+    String codeVerifier = vkAuthStateStore.take(state)
         .orElseThrow(() -> new VkAuthException("State not found or expired"));
 
-    String codeVerifier = vkAuthState.getCodeVerifier();
-    vkAuthStateRepository.deleteByState(state);
-
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_JSON);
 
@@ -119,7 +111,7 @@ public class AuthService {
 
     HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
 
-    Map<String, Object> tokenResponse = restTemplate.postForObject(TOKEN_URL, request, Map.class);
+    Map<String, Object> tokenResponse = restTemplate.postForObject(apiBaseUrl + TOKEN_PATH, request, Map.class);
     if (tokenResponse == null || !tokenResponse.containsKey("access_token")) {
       throw new VkAuthException("Invalid token response");
     }
@@ -141,7 +133,7 @@ public class AuthService {
     formData.add("access_token", vkToken);
     formData.add("client_id", appId);
 
-    Map<String, Object> response = restTemplate.postForObject(GET_USER_INFO_URL, formData, Map.class);
+    Map<String, Object> response = restTemplate.postForObject(apiBaseUrl + GET_USER_INFO_PATH, formData, Map.class);
 
     Map<String, Object> userInfo = (Map<String, Object>) response.get("user");
     if (userInfo == null || userInfo.isEmpty()) {
@@ -3,16 +3,26 @@ package com.educationalplatform.service;
 import com.educationalplatform.domain.dto.request.BlockAddRequest;
 import com.educationalplatform.domain.dto.request.BlockUpdateRequest;
 import com.educationalplatform.domain.dto.response.BlockResponse;
+import com.educationalplatform.domain.dto.response.StoredFile;
 import com.educationalplatform.domain.model.Block;
+import com.educationalplatform.domain.model.StoredObject;
 import com.educationalplatform.exceptions.BadRequestException;
 import com.educationalplatform.exceptions.BlockNotFoundException;
 import com.educationalplatform.repository.BlockRepository;
-import java.io.InputStream;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
@@ -23,6 +33,14 @@ public class BlockService {
 
   private final FileStorageService fileStorageService;
 
+  private final StorageOutboxService storageOutboxService;
+
+  private final StoredObjectService storedObjectService;
+
+  private final ImageVariantService imageVariantService;
+
+  private final TransactionTemplate transactionTemplate;
+
   @Transactional
   public BlockResponse add(BlockAddRequest blockAddRequest) {
     int sortOrder = blockRepository.findMaxSortOrder() + 1;
@@ -42,8 +60,7 @@ public class BlockService {
       block.setIsAvailable(false);
     } else {
       boolean hasTest = block.getTest() != null;
-      boolean hasVideo = fileStorageService.hasVideo(blockId);
-      if (!hasTest && !hasVideo) {
+      if (!hasTest && !block.getHasVideo()) {
         throw new BadRequestException("Cannot publish block without attached test or video");
       }
       block.setIsAvailable(true);
@@ -65,28 +82,35 @@ public class BlockService {
     blockRepository.save(firstBlock);
   }
 
-  @Transactional
+  /**
+   * Replaces the block image. The upload runs outside of any transaction under a fresh key;
+   * only the switch to the new key is committed, in a short transaction that also schedules
+   * the previous object for deletion (see {@link StorageOutboxService}).
+   */
   public void updatePhoto(Long blockId, MultipartFile image) {
     Block block = blockRepository.findById(blockId)
         .orElseThrow(BlockNotFoundException::new);
-    if (fileStorageService.hasBlockImage(blockId)) {
-      fileStorageService.deleteBlockImage(blockId);
-    }
-    fileStorageService.uploadBlockImage(blockId, image);
-    block.setHasImage(true);
-    blockRepository.save(block);
+    String legacyKey = block.getImageKey() == null && block.getHasImage()
+        ? fileStorageService.findBlockImageKey(blockId)
+        : null;
+    String newKey = fileStorageService.newBlockImageKey(blockId, image.getOriginalFilename());
+    replaceMedia(blockId, image, newKey, legacyKey, Block::getImageKey, (locked, key) -> {
+      locked.setImageKey(key);
+      locked.setHasImage(true);
+    });
   }
 
-  @Transactional
   public void updateVideo(Long blockId, MultipartFile video) {
     Block block = blockRepository.findById(blockId)
         .orElseThrow(BlockNotFoundException::new);
-    if (fileStorageService.hasVideo(blockId)) {
-      fileStorageService.deleteVideo(blockId);
-    }
-    fileStorageService.uploadVideo(blockId, video);
-    block.setHasVideo(true);
-    blockRepository.save(block);
+    String legacyKey = block.getVideoKey() == null && block.getHasVideo()
+        ? fileStorageService.findVideoKey(blockId)
+        : null;
+    String newKey = fileStorageService.newVideoKey(blockId, video.getOriginalFilename());
+    replaceMedia(blockId, video, newKey, legacyKey, Block::getVideoKey, (locked, key) -> {
+      locked.setVideoKey(key);
+      locked.setHasVideo(true);
+    });
   }
 
   @Transactional
@@ -101,15 +125,26 @@ public class BlockService {
   public void deleteBlock(Long blockId) {
     Block block = blockRepository.findById(blockId)
         .orElseThrow(BlockNotFoundException::new);
-    block.setIsAvailable(false);
-    blockRepository.save(block);
-    if (block.getHasImage()) {
-      fileStorageService.deleteBlockImage(blockId);
-    }
-    if (block.getHasVideo()) {
-      fileStorageService.deleteVideo(blockId);
-    }
-    blockRepository.delete(block);
+    String legacyImageKey = block.getImageKey() == null && block.getHasImage()
+        ? fileStorageService.findBlockImageKey(blockId)
+        : null;
+    String legacyVideoKey = block.getVideoKey() == null && block.getHasVideo()
+        ? fileStorageService.findVideoKey(blockId)
+        : null;
+
+    List<String> orphaned = transactionTemplate.execute(status -> {
+      Block locked = blockRepository.findByIdForUpdate(blockId)
+          .orElseThrow(BlockNotFoundException::new);
+      List<String> keys = Stream.of(
+              locked.getImageKey() != null ? locked.getImageKey() : legacyImageKey,
+              locked.getVideoKey() != null ? locked.getVideoKey() : legacyVideoKey)
+          .filter(Objects::nonNull)
+          .toList();
+      keys.forEach(storageOutboxService::scheduleDeletion);
+      blockRepository.delete(locked);
+      return keys;
+    });
+    orphaned.forEach(storageOutboxService::flush);
   }
 
   @Transactional(readOnly = true)
@@ -124,9 +159,100 @@ public class BlockService {
     return blocks.stream().map(BlockResponse::fromEntity).collect(Collectors.toList());
   }
 
-  @Transactional(readOnly = true)
-  public InputStream getBlockImage(Long blockId) {
-    blockRepository.findById(blockId).orElseThrow(BlockNotFoundException::new);
-    return fileStorageService.getBlockImage(blockId);
+  /**
+   * Looks the image up in the index and opens it asynchronously, so the request thread is not
+   * held while storage responds. With {@code width} a resized variant is served when one can
+   * be produced (see {@link ImageVariantService}). A client that already holds the current
+   * image, going by {@code ifNoneMatch} or else {@code ifModifiedSince}, gets
+   * {@link StoredFile#notModified} without a storage request.
+   */
+  public CompletableFuture<StoredFile> getBlockImage(Long blockId, Integer width, List<String> ifNoneMatch,
+      long ifModifiedSince) {
+    Block block = blockRepository.findById(blockId).orElseThrow(BlockNotFoundException::new);
+    String imageKey = block.getImageKey() != null
+        ? block.getImageKey()
+        : storedObjectService.resolveLegacyImageKey(block);
+    if (imageKey == null) {
+      throw new BlockNotFoundException("Block image not found");
+    }
+    StoredObject image = storedObjectService.get(imageKey);
+
+    List<StoredObject> current = new ArrayList<>(2);
+    if (width != null) {
+      imageVariantService.findVariant(image, width).ifPresent(current::add);
+    }
+    current.add(image);
+    StoredObject unchanged = findUnchanged(current, ifNoneMatch, ifModifiedSince);
+    if (unchanged != null) {
+      return CompletableFuture.completedFuture(StoredFile.notModified(unchanged));
+    }
+
+    if (width == null) {
+      return openImage(image);
+    }
+    return imageVariantService.getVariant(image, width)
+        .thenCompose(variant -> variant != null ? CompletableFuture.completedFuture(variant) : openImage(image));
+  }
+
+  private CompletableFuture<StoredFile> openImage(StoredObject image) {
+    return fileStorageService.getFileAsync(image.getObjectKey())
+        .thenApply(content -> new StoredFile(image, content));
+  }
+
+  /**
+   * Returns the representation the client already holds, if it is still current. Entity tags
+   * are compared weakly; the modification date is only checked without If-None-Match.
+   */
+  private static StoredObject findUnchanged(List<StoredObject> current, List<String> ifNoneMatch,
+      long ifModifiedSince) {
+    if (!ifNoneMatch.isEmpty()) {
+      for (String tag : ifNoneMatch) {
+        String opaqueTag = tag.startsWith("W/") ? tag.substring(2) : tag;
+        for (StoredObject object : current) {
+          if ("*".equals(tag) || object.entityTag().equals(opaqueTag)) {
+            return object;
+          }
+        }
+      }
+      return null;
+    }
+    if (ifModifiedSince < 0) {
+      return null;
+    }
+    StoredObject newest = current.stream()
+        .max(Comparator.comparing(StoredObject::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())))
+        .orElseThrow();
+    if (newest.getCreatedAt() == null) {
+      return null;
+    }
+    long lastModified = newest.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    return lastModified / 1000 <= ifModifiedSince / 1000 ? newest : null;
+  }
+
+  private void replaceMedia(Long blockId, MultipartFile file, String newKey, String legacyKey,
+      Function<Block, String> currentKey, BiConsumer<Block, String> attach) {
+    storageOutboxService.registerPendingUpload(newKey);
+    String replacedKey;
+    try {
+      StoredObject uploaded = fileStorageService.uploadFile(newKey, file);
+      replacedKey = transactionTemplate.execute(status -> {
+        Block locked = blockRepository.findByIdForUpdate(blockId)
+            .orElseThrow(BlockNotFoundException::new);
+        storageOutboxService.confirmUpload(newKey);
+        storedObjectService.register(uploaded);
+        String previous = currentKey.apply(locked) != null ? currentKey.apply(locked) : legacyKey;
+        attach.accept(locked, newKey);
+        if (previous != null) {
+          storageOutboxService.scheduleDeletion(previous);
+        }
+        return previous;
+      });
+    } catch (RuntimeException e) {
+      storageOutboxService.flush(newKey);
+      throw e;
+    }
+    if (replacedKey != null) {
+      storageOutboxService.flush(replacedKey);
+    }
   }
 }
@@ -1,48 +1,33 @@
 package com.educationalplatform.service;
 
-import io.minio.BucketExistsArgs;
-import io.minio.GetObjectArgs;
-import io.minio.ListObjectsArgs;
-import io.minio.MakeBucketArgs;
-import io.minio.MinioClient;
-import io.minio.PutObjectArgs;
-import io.minio.RemoveObjectArgs;
-import io.minio.Result;
-import io.minio.messages.Item;
+import com.educationalplatform.domain.model.StoredObject;
+import io.minio.ObjectWriteResponse;
+import io.minio.StatObjectResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileStorageService {
 
-  private final MinioClient minioClient;
-
-  @Value("${minio.bucket-name}")
-  private String bucketName;
+  private final StorageGateway storageGateway;
 
   public String uploadFile(MultipartFile file) {
     try {
-      createBucketIfNotExists();
-
       String fileExtension = getFileExtension(file.getOriginalFilename());
       String fileName = UUID.randomUUID() + fileExtension;
 
-      minioClient.putObject(
-        PutObjectArgs.builder()
-          .bucket(bucketName)
-          .object(fileName)
-          .stream(file.getInputStream(), file.getSize(), -1)
-          .contentType(file.getContentType())
-          .build()
-      );
+      try (InputStream stream = file.getInputStream()) {
+        storageGateway.put(fileName, stream, file.getSize(), file.getContentType());
+      }
 
       log.info("File uploaded successfully: {}", fileName);
       return fileName;
@@ -55,26 +40,27 @@ public class FileStorageService {
 
   public InputStream getFile(String fileName) {
     try {
-      return minioClient.getObject(
-        GetObjectArgs.builder()
-          .bucket(bucketName)
-          .object(fileName)
-          .build()
-      );
+      return storageGateway.get(fileName);
     } catch (Exception e) {
       log.error("Error getting file from MinIO: {}", fileName, e);
       throw new RuntimeException("Failed to get file", e);
     }
   }
 
+  /**
+   * Opens a file without blocking the caller while storage responds.
+   */
+  public CompletableFuture<InputStream> getFileAsync(String fileName) {
+    return storageGateway.getAsync(fileName)
+      .exceptionally(e -> {
+        log.error("Error getting file from MinIO: {}", fileName, e);
+        throw new RuntimeException("Failed to get file", e);
+      });
+  }
+
   public void deleteFile(String fileName) {
     try {
-      minioClient.removeObject(
-        RemoveObjectArgs.builder()
-          .bucket(bucketName)
-          .object(fileName)
-          .build()
-      );
+      storageGateway.remove(fileName);
       log.info("File deleted successfully: {}", fileName);
     } catch (Exception e) {
       log.error("Error deleting file from MinIO: {}", fileName, e);
@@ -82,136 +68,98 @@ public class FileStorageService {
     }
   }
 
-  public String uploadBlockImage(Long blockId, MultipartFile image) {
-    return uploadFileToFolder("blocks", blockId.toString(), "image", image);
-  }
-
-  public InputStream getBlockImage(Long blockId) {
-    return getFileFromFolder("blocks", blockId.toString(), "image");
-  }
-
-  public void deleteBlockImage(Long blockId) {
-    deleteFileFromFolder("blocks", blockId.toString(), "image");
-  }
-
-  public boolean hasBlockImage(Long blockId) {
-    return hasFileInFolder("blocks", blockId.toString(), "image");
-  }
-
-  public String uploadVideo(Long videoId, MultipartFile video) {
-    return uploadFileToFolder("videos", videoId.toString(), "video", video);
-  }
-
-  public InputStream getVideo(Long videoId) {
-    return getFileFromFolder("videos", videoId.toString(), "video");
-  }
-
-  public void deleteVideo(Long videoId) {
-    deleteFileFromFolder("videos", videoId.toString(), "video");
-  }
-
-  public boolean hasVideo(Long videoId) {
-    return hasFileInFolder("videos", videoId.toString(), "video");
-  }
-
-  private String uploadFileToFolder(String folder, String entityId, String fileType, MultipartFile file) {
+  /**
+   * Uploads the file under an exact key. Callers pick a fresh key per upload, so an object that
+   * is still referenced is never overwritten in place. Returns the attributes of the written
+   * object so they can be recorded and later reads need no listing or stat call.
+   */
+  public StoredObject uploadFile(String key, MultipartFile file) {
     try {
-      createBucketIfNotExists();
-
-      String fileExtension = getFileExtension(file.getOriginalFilename());
-      String fileName = folder + "/" + entityId + "/" + fileType + fileExtension;
-
-      minioClient.putObject(
-        PutObjectArgs.builder()
-          .bucket(bucketName)
-          .object(fileName)
-          .stream(file.getInputStream(), file.getSize(), -1)
-          .contentType(file.getContentType())
-          .build()
-      );
-
-      log.info("{} uploaded: {}/{}, fileName={}", fileType, folder, entityId, fileName);
-      return fileName;
+      ObjectWriteResponse response;
+      try (InputStream stream = file.getInputStream()) {
+        response = storageGateway.put(key, stream, file.getSize(), file.getContentType());
+      }
 
+      log.info("Object uploaded: {}", key);
+      return StoredObject.builder()
+        .objectKey(key)
+        .size(file.getSize())
+        .contentType(file.getContentType())
+        .etag(response.etag())
+        .build();
     } catch (Exception e) {
-      log.error("Error uploading {} for {}/{}", fileType, folder, entityId, e);
-      throw new RuntimeException("Failed to upload " + fileType, e);
+      log.error("Error uploading object {}", key, e);
+      throw new RuntimeException("Failed to upload " + key, e);
     }
   }
 
-  private InputStream getFileFromFolder(String folder, String entityId, String fileType) {
+  /**
+   * Uploads generated content under an exact key, see {@link #uploadFile(String, MultipartFile)}.
+   */
+  public StoredObject uploadFile(String key, byte[] data, String contentType) {
     try {
-      String fileNamePattern = folder + "/" + entityId + "/" + fileType;
-      String fileName = findFileByPattern(fileNamePattern);
-
-      if (fileName == null) {
-        throw new RuntimeException(fileType + " not found for " + folder + ": " + entityId);
-      }
-
-      return minioClient.getObject(
-        GetObjectArgs.builder()
-          .bucket(bucketName)
-          .object(fileName)
-          .build()
-      );
+      ObjectWriteResponse response = storageGateway.put(key, new ByteArrayInputStream(data), data.length, contentType);
+
+      log.info("Object uploaded: {}", key);
+      return StoredObject.builder()
+        .objectKey(key)
+        .size((long) data.length)
+        .contentType(contentType)
+        .etag(response.etag())
+        .build();
     } catch (Exception e) {
-      log.error("Error getting {} for {}/{}", fileType, folder, entityId, e);
-      throw new RuntimeException("Failed to get " + fileType, e);
+      log.error("Error uploading object {}", key, e);
+      throw new RuntimeException("Failed to upload " + key, e);
     }
   }
 
-  private void deleteFileFromFolder(String folder, String entityId, String fileType) {
+  /**
+   * Reads the attributes of an object that was uploaded before they were recorded.
+   */
+  public StoredObject statFile(String key) {
     try {
-      String fileNamePattern = folder + "/" + entityId + "/" + fileType;
-      String fileName = findFileByPattern(fileNamePattern);
-
-      if (fileName != null) {
-        minioClient.removeObject(
-          RemoveObjectArgs.builder()
-            .bucket(bucketName)
-            .object(fileName)
-            .build()
-        );
-        log.info("{} deleted: {}/{}, fileName={}", fileType, folder, entityId, fileName);
-      }
+      StatObjectResponse stat = storageGateway.stat(key);
+      return StoredObject.builder()
+        .objectKey(key)
+        .size(stat.size())
+        .contentType(stat.contentType())
+        .etag(stat.etag())
+        .build();
     } catch (Exception e) {
-      log.error("Error deleting {} for {}/{}", fileType, folder, entityId, e);
-      throw new RuntimeException("Failed to delete " + fileType, e);
+      log.error("Error reading attributes of object {}", key, e);
+      throw new RuntimeException("Failed to stat " + key, e);
     }
   }
 
-  private boolean hasFileInFolder(String folder, String entityId, String fileType) {
-    try {
-      String fileNamePattern = folder + "/" + entityId + "/" + fileType;
-      return findFileByPattern(fileNamePattern) != null;
-    } catch (Exception e) {
-      log.error("Error checking {} for {}/{}", fileType, folder, entityId, e);
-      return false;
-    }
+  public String newBlockImageKey(Long blockId, String originalFilename) {
+    return newKey("blocks", blockId.toString(), "image", originalFilename);
   }
 
-  private String findFileByPattern(String pattern) throws Exception {
-    Iterable<Result<Item>> results = minioClient.listObjects(
-      ListObjectsArgs.builder()
-        .bucket(bucketName)
-        .prefix(pattern)
-        .build()
-    );
-
-    for (Result<Item> result : results) {
-      Item item = result.get();
-      if (item.objectName().startsWith(pattern)) {
-        return item.objectName();
-      }
-    }
-    return null;
+  public String newVideoKey(Long videoId, String originalFilename) {
+    return newKey("videos", videoId.toString(), "video", originalFilename);
+  }
+
+  /**
+   * Finds the key of an image uploaded before keys were stored on the block.
+   */
+  public String findBlockImageKey(Long blockId) {
+    return findKeyInFolder("blocks", blockId.toString(), "image");
+  }
+
+  public String findVideoKey(Long videoId) {
+    return findKeyInFolder("videos", videoId.toString(), "video");
+  }
+
+  private String newKey(String folder, String entityId, String fileType, String originalFilename) {
+    return folder + "/" + entityId + "/" + fileType + "-" + UUID.randomUUID() + getFileExtension(originalFilename);
   }
 
-  private void createBucketIfNotExists() throws Exception {
-    boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
-    if (!found) {
-      minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
-      log.info("Bucket created: {}", bucketName);
+  private String findKeyInFolder(String folder, String entityId, String fileType) {
+    try {
+      return storageGateway.findFirst(folder + "/" + entityId + "/" + fileType);
+    } catch (Exception e) {
+      log.error("Error looking up {} for {}/{}", fileType, folder, entityId, e);
+      throw new RuntimeException("Failed to look up " + fileType, e);
     }
   }
 
@@ -0,0 +1,86 @@
+package com.educationalplatform.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * LRU cache of resized image variants, bounded by the total size of the cached bytes.
+ * Variant keys are never reused, so entries only have to be dropped when the variant is
+ * deleted.
+ */
+@Component
+public class ImageVariantCache {
+
+  private final long maxBytes;
+  private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private long currentBytes;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public ImageVariantCache(
+      @Value("${storage.image.cache-max-bytes:67108864}") long maxBytes,
+      MeterRegistry meterRegistry) {
+    this.maxBytes = maxBytes;
+    this.hits = Counter.builder("image.variant.cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("image.variant.cache.requests").tag("result", "miss").register(meterRegistry);
+    this.evictions = Counter.builder("image.variant.cache.evictions").register(meterRegistry);
+    Gauge.builder("image.variant.cache.size.bytes", this, ImageVariantCache::sizeInBytes).register(meterRegistry);
+  }
+
+  public byte[] get(String key) {
+    byte[] data;
+    synchronized (entries) {
+      data = entries.get(key);
+    }
+    if (data != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return data;
+  }
+
+  public void put(String key, byte[] data) {
+    if (data.length > maxBytes) {
+      return;
+    }
+    synchronized (entries) {
+      byte[] previous = entries.put(key, data);
+      if (previous != null) {
+        currentBytes -= previous.length;
+      }
+      currentBytes += data.length;
+
+      Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+      while (currentBytes > maxBytes && iterator.hasNext()) {
+        Map.Entry<String, byte[]> eldest = iterator.next();
+        currentBytes -= eldest.getValue().length;
+        iterator.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  public void evict(String key) {
+    synchronized (entries) {
+      byte[] removed = entries.remove(key);
+      if (removed != null) {
+        currentBytes -= removed.length;
+      }
+    }
+  }
+
+  public long sizeInBytes() {
+    synchronized (entries) {
+      return currentBytes;
+    }
+  }
+}
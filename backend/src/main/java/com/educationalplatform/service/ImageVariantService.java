@@ -0,0 +1,312 @@
+package com.educationalplatform.service;
+
+import com.educationalplatform.domain.dto.response.StoredFile;
+import com.educationalplatform.domain.model.StoredObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resized variants of uploaded images. A variant is produced with ImageIO on first request,
+ * stored next to the original under a key derived from it and recorded as derived from the
+ * original, so it is deleted together with it. Requested widths are rounded up to one of the
+ * configured widths, which bounds the number of variants per image. Opaque images are encoded
+ * as JPEG, images with transparency as PNG. Images that cannot be decoded or are too large to
+ * decode safely are served as they are.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+  private static final String JPEG = "image/jpeg";
+  private static final String PNG = "image/png";
+
+  private record Variant(StoredObject object, byte[] data) {
+  }
+
+  private record EncodedImage(byte[] data, String contentType) {
+  }
+
+  private final FileStorageService fileStorageService;
+  private final StoredObjectService storedObjectService;
+  private final ImageVariantCache cache;
+  private final int[] widths;
+  private final long maxSourceBytes;
+  private final long maxSourcePixels;
+  private final float jpegQuality;
+  private final ThreadPoolExecutor executor;
+  private final Map<String, CompletableFuture<Variant>> inFlight = new ConcurrentHashMap<>();
+  private final Set<String> notResizable = ConcurrentHashMap.newKeySet();
+
+  private final Counter generated;
+
+  public ImageVariantService(
+      FileStorageService fileStorageService,
+      StoredObjectService storedObjectService,
+      ImageVariantCache cache,
+      MeterRegistry meterRegistry,
+      @Value("${storage.image.variant-widths:160,320,640,1280}") int[] widths,
+      @Value("${storage.image.max-source-bytes:33554432}") long maxSourceBytes,
+      @Value("${storage.image.max-source-pixels:50000000}") long maxSourcePixels,
+      @Value("${storage.image.jpeg-quality:0.82}") float jpegQuality,
+      @Value("${storage.image.threads:2}") int threads,
+      @Value("${storage.image.queue-capacity:32}") int queueCapacity) {
+    this.fileStorageService = fileStorageService;
+    this.storedObjectService = storedObjectService;
+    this.cache = cache;
+    this.widths = Arrays.stream(widths).filter(width -> width > 0).sorted().distinct().toArray();
+    this.maxSourceBytes = maxSourceBytes;
+    this.maxSourcePixels = maxSourcePixels;
+    this.jpegQuality = jpegQuality;
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+
+    this.generated = Counter.builder("image.variants.generated").register(meterRegistry);
+    Gauge.builder("image.variants.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+  }
+
+  /**
+   * Returns the variant of {@code original} at least {@code requestedWidth} pixels wide, or
+   * completes with {@code null} when the original itself should be served: the request is
+   * wider than every configured width, the image cannot be resized, or the pool is busy.
+   */
+  public CompletableFuture<StoredFile> getVariant(StoredObject original, int requestedWidth) {
+    if (requestedWidth <= 0) {
+      throw new IllegalArgumentException("Image width must be positive");
+    }
+    Integer width = variantWidth(requestedWidth);
+    if (width == null || notResizable.contains(original.getObjectKey())) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    String key = variantKey(original.getObjectKey(), width);
+    byte[] cached = cache.get(key);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(toFile(new Variant(storedObjectService.get(key), cached)));
+    }
+
+    CompletableFuture<Variant> own = new CompletableFuture<>();
+    CompletableFuture<Variant> existing = inFlight.putIfAbsent(key, own);
+    if (existing != null) {
+      return existing.thenApply(ImageVariantService::toFile);
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          own.complete(loadOrCreate(original, width, key));
+        } catch (Exception e) {
+          log.warn("Failed to produce variant {}, serving the original: {}", key, e.getMessage());
+          own.complete(null);
+        } finally {
+          inFlight.remove(key, own);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(key, own);
+      own.complete(null);
+    }
+    return own.thenApply(ImageVariantService::toFile);
+  }
+
+  /**
+   * Returns the recorded variant that {@link #getVariant} would serve, without touching storage.
+   */
+  public Optional<StoredObject> findVariant(StoredObject original, int requestedWidth) {
+    Integer width = requestedWidth > 0 ? variantWidth(requestedWidth) : null;
+    if (width == null) {
+      return Optional.empty();
+    }
+    return storedObjectService.find(variantKey(original.getObjectKey(), width));
+  }
+
+  /**
+   * Deletes the variants of a deleted original.
+   */
+  public void deleteVariants(String sourceKey) {
+    for (StoredObject variant : storedObjectService.findDerived(sourceKey)) {
+      fileStorageService.deleteFile(variant.getObjectKey());
+      storedObjectService.forget(variant.getObjectKey());
+      cache.evict(variant.getObjectKey());
+    }
+    notResizable.remove(sourceKey);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private Integer variantWidth(int requestedWidth) {
+    for (int width : widths) {
+      if (width >= requestedWidth) {
+        return width;
+      }
+    }
+    return null;
+  }
+
+  private Variant loadOrCreate(StoredObject original, int width, String key) throws IOException {
+    Optional<StoredObject> stored = storedObjectService.find(key);
+    if (stored.isPresent()) {
+      byte[] data = read(key);
+      cache.put(key, data);
+      return new Variant(stored.get(), data);
+    }
+
+    if (original.getSize() > maxSourceBytes) {
+      notResizable.add(original.getObjectKey());
+      return null;
+    }
+    byte[] source = read(original.getObjectKey());
+    EncodedImage encoded;
+    try {
+      encoded = resize(source, width);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Image {} cannot be decoded, serving it as is: {}", original.getObjectKey(), e.getMessage());
+      encoded = null;
+    }
+    if (encoded == null) {
+      notResizable.add(original.getObjectKey());
+      return null;
+    }
+
+    StoredObject variant = fileStorageService.uploadFile(key, encoded.data(), encoded.contentType());
+    variant.setSourceKey(original.getObjectKey());
+    if (!storedObjectService.registerDerived(variant)) {
+      fileStorageService.deleteFile(key);
+      return null;
+    }
+    generated.increment();
+    log.info("Image variant created: {} ({} bytes)", key, encoded.data().length);
+    cache.put(key, encoded.data());
+    return new Variant(variant, encoded.data());
+  }
+
+  private byte[] read(String key) throws IOException {
+    try (InputStream in = fileStorageService.getFile(key)) {
+      return in.readAllBytes();
+    }
+  }
+
+  private EncodedImage resize(byte[] source, int width) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext()) {
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        int sourceWidth = reader.getWidth(0);
+        int sourceHeight = reader.getHeight(0);
+        if ((long) sourceWidth * sourceHeight > maxSourcePixels) {
+          return null;
+        }
+        BufferedImage image = reader.read(0);
+        boolean alpha = image.getColorModel().hasAlpha();
+        int targetWidth = Math.min(width, sourceWidth);
+        int targetHeight = Math.max(1, (int) Math.round((double) sourceHeight * targetWidth / sourceWidth));
+        BufferedImage scaled = scale(image, targetWidth, targetHeight,
+            alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        return alpha
+            ? new EncodedImage(encodePng(scaled), PNG)
+            : new EncodedImage(encodeJpeg(scaled), JPEG);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Halves the image step by step down to the target size: a single bilinear step from a much
+   * larger image skips most source pixels and looks noisy.
+   */
+  private static BufferedImage scale(BufferedImage source, int width, int height, int type) {
+    BufferedImage current = source;
+    int currentWidth = source.getWidth();
+    int currentHeight = source.getHeight();
+    do {
+      currentWidth = Math.max(width, currentWidth / 2);
+      currentHeight = Math.max(height, currentHeight / 2);
+      BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+      Graphics2D graphics = next.createGraphics();
+      try {
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+      } finally {
+        graphics.dispose();
+      }
+      current = next;
+    } while (currentWidth != width || currentHeight != height);
+    return current;
+  }
+
+  private byte[] encodeJpeg(BufferedImage image) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ImageWriteParam param = writer.getDefaultWriteParam();
+    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+    param.setCompressionQuality(jpegQuality);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+      writer.setOutput(output);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] encodePng(BufferedImage image) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", out);
+    return out.toByteArray();
+  }
+
+  private static String variantKey(String originalKey, int width) {
+    return originalKey + "@w" + width;
+  }
+
+  private static StoredFile toFile(Variant variant) {
+    return variant != null ? new StoredFile(variant.object(), new ByteArrayInputStream(variant.data())) : null;
+  }
+}
@@ -0,0 +1,98 @@
+package com.educationalplatform.service;
+
+import com.educationalplatform.exceptions.VkAuthException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default {@link VkAuthStateStore} for a single node. States are kept in time buckets: a state
+ * goes into the bucket of the current time slice, and a bucket is dropped as a whole once its
+ * slice is older than the TTL, so abandoned logins need no per-entry cleanup.
+ */
+@Component
+@ConditionalOnProperty(name = "vk.auth-state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryVkAuthStateStore implements VkAuthStateStore {
+
+  private static final int BUCKETS_PER_TTL = 4;
+
+  private record Entry(String codeVerifier, long createdAtMillis) {
+  }
+
+  private record Bucket(long slice, ConcurrentMap<String, Entry> entries) {
+  }
+
+  private final long ttlMillis;
+  private final long sliceMillis;
+  private final int maxEntries;
+  private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS_PER_TTL + 1);
+
+  public InMemoryVkAuthStateStore(
+      @Value("${vk.auth-state.ttl-seconds:600}") long ttlSeconds,
+      @Value("${vk.auth-state.max-entries:100000}") int maxEntries) {
+    this.ttlMillis = ttlSeconds * 1000;
+    this.sliceMillis = Math.max(1, ttlMillis / BUCKETS_PER_TTL);
+    this.maxEntries = maxEntries;
+  }
+
+  @Override
+  public void save(String state, String codeVerifier) {
+    long now = System.currentTimeMillis();
+    if (size(now) >= maxEntries) {
+      throw new VkAuthException("Too many pending logins, try again later");
+    }
+    currentBucket(now / sliceMillis).put(state, new Entry(codeVerifier, now));
+  }
+
+  @Override
+  public Optional<String> take(String state) {
+    long now = System.currentTimeMillis();
+    long slice = now / sliceMillis;
+    for (int i = 0; i < buckets.length(); i++) {
+      Bucket bucket = buckets.get(i);
+      if (bucket == null || !isLive(bucket, slice)) {
+        continue;
+      }
+      Entry entry = bucket.entries().remove(state);
+      if (entry != null) {
+        return now - entry.createdAtMillis() < ttlMillis ? Optional.of(entry.codeVerifier()) : Optional.empty();
+      }
+    }
+    return Optional.empty();
+  }
+
+  private ConcurrentMap<String, Entry> currentBucket(long slice) {
+    int index = (int) (slice % buckets.length());
+    while (true) {
+      Bucket bucket = buckets.get(index);
+      if (bucket != null && bucket.slice() >= slice) {
+        return bucket.entries();
+      }
+      // The slot still holds a bucket from a slice older than the TTL: replace it with a new one
+      Bucket fresh = new Bucket(slice, new ConcurrentHashMap<>());
+      if (buckets.compareAndSet(index, bucket, fresh)) {
+        return fresh.entries();
+      }
+    }
+  }
+
+  private int size(long now) {
+    long slice = now / sliceMillis;
+    int size = 0;
+    for (int i = 0; i < buckets.length(); i++) {
+      Bucket bucket = buckets.get(i);
+      if (bucket != null && isLive(bucket, slice)) {
+        size += bucket.entries().size();
+      }
+    }
+    return size;
+  }
+
+  private boolean isLive(Bucket bucket, long currentSlice) {
+    return currentSlice - bucket.slice() < buckets.length();
+  }
+}
@@ -0,0 +1,64 @@
+package com.educationalplatform.service;
+
+import com.educationalplatform.domain.model.VkAuthState;
+import com.educationalplatform.repository.VkAuthStateRepository;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link VkAuthStateStore} in the {@code vk_auth_states} table, for deployments where the
+ * callback may reach a different node than the one that issued the state. Expired states are
+ * purged in batches by {@link #purgeExpired()}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "vk.auth-state.store", havingValue = "database")
+public class JpaVkAuthStateStore implements VkAuthStateStore {
+
+  private final VkAuthStateRepository vkAuthStateRepository;
+  private final long ttlSeconds;
+  private final int purgeBatchSize;
+
+  public JpaVkAuthStateStore(
+      VkAuthStateRepository vkAuthStateRepository,
+      @Value("${vk.auth-state.ttl-seconds:600}") long ttlSeconds,
+      @Value("${vk.auth-state.purge-batch-size:1000}") int purgeBatchSize) {
+    this.vkAuthStateRepository = vkAuthStateRepository;
+    this.ttlSeconds = ttlSeconds;
+    this.purgeBatchSize = purgeBatchSize;
+  }
+
+  @Override
+  public void save(String state, String codeVerifier) {
+    vkAuthStateRepository.save(VkAuthState.builder()
+        .state(state)
+        .codeVerifier(codeVerifier)
+        .build());
+  }
+
+  @Override
+  @Transactional
+  public Optional<String> take(String state) {
+    return vkAuthStateRepository.take(state, LocalDateTime.now().minusSeconds(ttlSeconds));
+  }
+
+  @Scheduled(fixedDelayString = "${vk.auth-state.purge-interval-ms:600000}")
+  public void purgeExpired() {
+    LocalDateTime cutoff = LocalDateTime.now().minusSeconds(ttlSeconds);
+    int purged = 0;
+    int deleted;
+    do {
+      deleted = vkAuthStateRepository.deleteExpired(cutoff, purgeBatchSize);
+      purged += deleted;
+    } while (deleted == purgeBatchSize);
+    if (purged > 0) {
+      log.info("Purged {} expired VK auth states", purged);
+    }
+  }
+}
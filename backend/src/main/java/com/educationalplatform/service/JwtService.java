@@ -1,32 +1,48 @@
 package com.educationalplatform.service;
 
 import com.educationalplatform.domain.model.User;
+import com.educationalplatform.utils.JwtPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import java.util.Optional;
 import java.util.UUID;
+import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
+/**
+ * Issues and verifies access tokens. The signing key and the parser are built once: both are
+ * immutable and thread-safe, so a request only pays for the signature check and one parse.
+ */
 @Service
 public class JwtService {
 
-  @Value("${jwt.secret}")
-  private String jwtSigningKey;
+  private final SecretKey signingKey;
+  private final JwtParser parser;
+  private final long keyExpiration;
 
-  @Value("${jwt.expiration}")
-  private Long keyExpiration;
+  public JwtService(
+      @Value("${jwt.secret}") String jwtSigningKey,
+      @Value("${jwt.expiration}") Long keyExpiration) {
+    this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSigningKey));
+    this.parser = Jwts.parser()
+        .verifyWith(signingKey)
+        .build();
+    this.keyExpiration = keyExpiration;
+  }
 
   public UUID extractUserId(String token) {
-    return UUID.fromString(extractClaim(token, claims -> claims.get("userId", String.class)));
+    return parse(token).userId();
   }
 
   public String generateToken(User user) {
@@ -37,17 +53,34 @@ public class JwtService {
     return generateToken(claims, user.getId().toString());
   }
 
-  public boolean isTokenValid(String token) {
+  /**
+   * Verifies the signature and expiry of {@code token} and returns its claims, or empty if the
+   * token is invalid.
+   */
+  public Optional<JwtPrincipal> verify(String token) {
     try {
-      return !isTokenExpired(token);
-    } catch (Exception e) {
-      return false;
+      return Optional.of(parse(token));
+    } catch (JwtException | IllegalArgumentException e) {
+      return Optional.empty();
     }
   }
 
-  private <T> T extractClaim(String token, Function<Claims, T> claimsResolvers) {
-    final Claims claims = extractAllClaims(token);
-    return claimsResolvers.apply(claims);
+  public boolean isTokenValid(String token) {
+    return verify(token).isPresent();
+  }
+
+  private JwtPrincipal parse(String token) {
+    Claims claims = parser.parseSignedClaims(token).getPayload();
+    String userId = claims.get("userId", String.class);
+    if (userId == null) {
+      throw new MalformedJwtException("Token has no userId claim");
+    }
+    String role = claims.get("role", String.class);
+    return new JwtPrincipal(
+        UUID.fromString(userId),
+        role != null ? User.Role.valueOf(role) : null,
+        claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+        claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
   }
 
   private String generateToken(Map<String, Object> extraClaims, String subject) {
@@ -56,28 +89,7 @@ public class JwtService {
         .setSubject(subject)
         .setIssuedAt(new Date(System.currentTimeMillis()))
         .setExpiration(new Date(System.currentTimeMillis() + keyExpiration))
-        .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+        .signWith(signingKey, SignatureAlgorithm.HS256)
         .compact();
   }
-
-  private boolean isTokenExpired(String token) {
-    return extractExpiration(token).before(new Date());
-  }
-
-  private Date extractExpiration(String token) {
-    return extractClaim(token, Claims::getExpiration);
-  }
-
-  private Claims extractAllClaims(String token) {
-    return Jwts.parser()
-        .setSigningKey(getSigningKey())
-        .build()
-        .parseClaimsJws(token)
-        .getBody();
-  }
-
-  private Key getSigningKey() {
-    byte[] keyBytes = Decoders.BASE64.decode(jwtSigningKey);
-    return Keys.hmacShaKeyFor(keyBytes);
-  }
-}
\ No newline at end of file
+}
@@ -0,0 +1,323 @@
+package com.educationalplatform.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.BucketExistsArgs;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
+import io.minio.messages.Item;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single entry point for object storage calls. The bucket is checked once at startup instead of
+ * before every upload, idempotent calls are retried with exponential backoff on transient
+ * failures, and every call is timed as {@code storage.requests} with the bytes moved counted
+ * as {@code storage.bytes}.
+ *
+ * <p>The {@code *Async} reads go through {@link MinioAsyncClient} and hold no caller thread
+ * while waiting for storage: the future completes on an HTTP client thread, whose number is
+ * bounded by {@code storage.http.max-requests}.
+ */
+@Slf4j
+@Service
+public class StorageGateway {
+
+  private final MinioClient minioClient;
+  private final MinioAsyncClient minioAsyncClient;
+  private final MeterRegistry meterRegistry;
+  private final String bucketName;
+  private final int maxAttempts;
+  private final long retryBackoffMillis;
+
+  private final Counter uploadedBytes;
+  private final Counter downloadedBytes;
+
+  private volatile boolean bucketReady;
+
+  public StorageGateway(
+      MinioClient minioClient,
+      MinioAsyncClient minioAsyncClient,
+      MeterRegistry meterRegistry,
+      @Value("${minio.bucket-name}") String bucketName,
+      @Value("${storage.retry.max-attempts:3}") int maxAttempts,
+      @Value("${storage.retry.backoff-ms:100}") long retryBackoffMillis) {
+    this.minioClient = minioClient;
+    this.minioAsyncClient = minioAsyncClient;
+    this.meterRegistry = meterRegistry;
+    this.bucketName = bucketName;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.retryBackoffMillis = retryBackoffMillis;
+
+    this.uploadedBytes = Counter.builder("storage.bytes").tag("direction", "upload").register(meterRegistry);
+    this.downloadedBytes = Counter.builder("storage.bytes").tag("direction", "download").register(meterRegistry);
+  }
+
+  public String getBucketName() {
+    return bucketName;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void checkBucketOnStartup() {
+    try {
+      ensureBucket();
+    } catch (RuntimeException e) {
+      log.warn("Bucket {} is not available yet, will retry on first write: {}", bucketName, e.getMessage());
+    }
+  }
+
+  public void ensureBucket() {
+    if (bucketReady) {
+      return;
+    }
+    try {
+      boolean found = call("bucket-exists",
+          () -> minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build()));
+      if (!found) {
+        call("make-bucket", () -> {
+          minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+          return null;
+        });
+        log.info("Bucket created: {}", bucketName);
+      }
+      bucketReady = true;
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to initialize bucket " + bucketName, e);
+    }
+  }
+
+  /**
+   * Writes an object. Not retried: the stream cannot be replayed.
+   */
+  public ObjectWriteResponse put(String key, InputStream stream, long size, String contentType) throws Exception {
+    ensureBucket();
+    ObjectWriteResponse response = call("put", () -> minioClient.putObject(
+        PutObjectArgs.builder()
+            .bucket(bucketName)
+            .object(key)
+            .stream(stream, size, -1)
+            .contentType(contentType)
+            .build()));
+    uploadedBytes.increment(size);
+    return response;
+  }
+
+  /**
+   * Opens an object. Opening is retried; a failure while the returned stream is read is not.
+   */
+  public InputStream get(String key) throws Exception {
+    return new CountingInputStream(retrying("get", () -> minioClient.getObject(
+        GetObjectArgs.builder()
+            .bucket(bucketName)
+            .object(key)
+            .build())));
+  }
+
+  public InputStream get(String key, long offset, long length) throws Exception {
+    return new CountingInputStream(retrying("get-range", () -> minioClient.getObject(
+        GetObjectArgs.builder()
+            .bucket(bucketName)
+            .object(key)
+            .offset(offset)
+            .length(length)
+            .build())));
+  }
+
+  /**
+   * Opens an object without blocking the caller; the future completes once storage has
+   * started sending the content.
+   */
+  public CompletableFuture<InputStream> getAsync(String key) {
+    return retryingAsync("get", 1, () -> minioAsyncClient.getObject(
+        GetObjectArgs.builder()
+            .bucket(bucketName)
+            .object(key)
+            .build()))
+        .thenApply(CountingInputStream::new);
+  }
+
+  /**
+   * Reads a byte range without blocking the caller. Meant for ranges that fit in memory,
+   * such as video chunks: the body is read on the HTTP client thread that received it.
+   */
+  public CompletableFuture<byte[]> readAsync(String key, long offset, long length) {
+    return retryingAsync("get-range", 1, () -> minioAsyncClient.getObject(
+        GetObjectArgs.builder()
+            .bucket(bucketName)
+            .object(key)
+            .offset(offset)
+            .length(length)
+            .build()))
+        .thenApply(response -> {
+          try (InputStream in = new CountingInputStream(response)) {
+            return in.readAllBytes();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  public StatObjectResponse stat(String key) throws Exception {
+    return retrying("stat", () -> minioClient.statObject(
+        StatObjectArgs.builder()
+            .bucket(bucketName)
+            .object(key)
+            .build()));
+  }
+
+  public void remove(String key) throws Exception {
+    retrying("remove", () -> {
+      minioClient.removeObject(
+          RemoveObjectArgs.builder()
+              .bucket(bucketName)
+              .object(key)
+              .build());
+      return null;
+    });
+  }
+
+  /**
+   * Returns the first key starting with {@code prefix}, or {@code null}.
+   */
+  public String findFirst(String prefix) throws Exception {
+    return retrying("list", () -> {
+      Iterable<Result<Item>> results = minioClient.listObjects(
+          ListObjectsArgs.builder()
+              .bucket(bucketName)
+              .prefix(prefix)
+              .maxKeys(1)
+              .build());
+      for (Result<Item> result : results) {
+        return result.get().objectName();
+      }
+      return null;
+    });
+  }
+
+  private <T> T retrying(String operation, StorageCall<T> storageCall) throws Exception {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return call(operation, storageCall);
+      } catch (Exception e) {
+        if (attempt >= maxAttempts || !isTransient(e)) {
+          throw e;
+        }
+        long delay = retryBackoffMillis << (attempt - 1);
+        onRetry(operation, attempt, delay, e);
+        Thread.sleep(delay);
+      }
+    }
+  }
+
+  private <T> CompletableFuture<T> retryingAsync(String operation, int attempt,
+      StorageCall<CompletableFuture<T>> storageCall) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    CompletableFuture<T> future;
+    try {
+      future = storageCall.execute();
+    } catch (Exception e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+    return future
+        .whenComplete((value, error) -> record(operation, sample, error == null))
+        .exceptionallyCompose(error -> {
+          Throwable cause = error instanceof CompletionException && error.getCause() != null
+              ? error.getCause()
+              : error;
+          if (attempt >= maxAttempts || !(cause instanceof Exception e && isTransient(e))) {
+            return CompletableFuture.failedFuture(cause);
+          }
+          long delay = retryBackoffMillis << (attempt - 1);
+          onRetry(operation, attempt, delay, e);
+          return CompletableFuture.runAsync(() -> { },
+                  CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+              .thenCompose(ignored -> retryingAsync(operation, attempt + 1, storageCall));
+        });
+  }
+
+  private <T> T call(String operation, StorageCall<T> storageCall) throws Exception {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    boolean success = false;
+    try {
+      T value = storageCall.execute();
+      success = true;
+      return value;
+    } finally {
+      record(operation, sample, success);
+    }
+  }
+
+  private void record(String operation, Timer.Sample sample, boolean success) {
+    sample.stop(Timer.builder("storage.requests")
+        .tag("operation", operation)
+        .tag("result", success ? "success" : "failure")
+        .register(meterRegistry));
+  }
+
+  private void onRetry(String operation, int attempt, long delay, Exception e) {
+    log.warn("Storage {} failed (attempt {}/{}), retrying in {} ms: {}",
+        operation, attempt, maxAttempts, delay, e.getMessage());
+    Counter.builder("storage.retries").tag("operation", operation).register(meterRegistry).increment();
+  }
+
+  private static boolean isTransient(Exception e) {
+    if (e instanceof IOException || e instanceof ServerException) {
+      return true;
+    }
+    return e instanceof ErrorResponseException error
+        && error.response() != null
+        && error.response().code() >= 500;
+  }
+
+  @FunctionalInterface
+  private interface StorageCall<T> {
+    T execute() throws Exception;
+  }
+
+  private final class CountingInputStream extends FilterInputStream {
+
+    private CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        downloadedBytes.increment();
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        downloadedBytes.increment(n);
+      }
+      return n;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package com.educationalplatform.service;
+
+import com.educationalplatform.domain.model.StorageOutboxEntry;
+import com.educationalplatform.repository.BlockRepository;
+import com.educationalplatform.repository.StorageOutboxRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Transactional outbox for storage objects that have to be removed. Metadata changes record the
+ * objects they orphan in the same short transaction, and the objects are deleted afterwards,
+ * outside of any transaction: right away when possible, otherwise by {@link #reconcile()}.
+ * An upload is registered before it starts, so an object left by a failed or interrupted
+ * upload is removed once the grace period has passed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageOutboxService {
+
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final StorageOutboxRepository outboxRepository;
+  private final BlockRepository blockRepository;
+  private final FileStorageService fileStorageService;
+  private final StoredObjectService storedObjectService;
+  private final ImageVariantService imageVariantService;
+
+  @Value("${storage.outbox.pending-upload-grace-minutes:60}")
+  private long pendingUploadGraceMinutes;
+
+  @Value("${storage.outbox.retry-backoff-seconds:60}")
+  private long retryBackoffSeconds;
+
+  @Transactional
+  public void registerPendingUpload(String key) {
+    outboxRepository.save(StorageOutboxEntry.builder()
+        .objectKey(key)
+        .dueAt(LocalDateTime.now().plusMinutes(pendingUploadGraceMinutes))
+        .build());
+  }
+
+  /**
+   * Keeps an uploaded object. Fails if the reconciler has already given up on the upload and
+   * removed it, so the caller's transaction never references a deleted object.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void confirmUpload(String key) {
+    if (outboxRepository.deleteByObjectKey(key) == 0) {
+      throw new IllegalStateException("Upload of " + key + " expired before it was committed");
+    }
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void scheduleDeletion(String key) {
+    outboxRepository.save(StorageOutboxEntry.builder()
+        .objectKey(key)
+        .dueAt(LocalDateTime.now())
+        .build());
+  }
+
+  /**
+   * Processes the entries for {@code key} now instead of waiting for the reconciler. Must be
+   * called after the transaction that scheduled them has committed, or by the uploader itself
+   * once its upload has failed.
+   */
+  public void flush(String key) {
+    for (StorageOutboxEntry entry : outboxRepository.findByObjectKey(key)) {
+      process(entry);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${storage.outbox.reconcile-interval-ms:60000}")
+  public void reconcile() {
+    List<StorageOutboxEntry> due = outboxRepository.findTop100ByDueAtBeforeOrderByDueAt(LocalDateTime.now());
+    for (StorageOutboxEntry entry : due) {
+      process(entry);
+    }
+  }
+
+  private void process(StorageOutboxEntry entry) {
+    String key = entry.getObjectKey();
+    if (blockRepository.isObjectReferenced(key)) {
+      outboxRepository.delete(entry);
+      return;
+    }
+    try {
+      fileStorageService.deleteFile(key);
+      // The entry goes first: a variant registered after this point is rejected, one
+      // registered before it is found by deleteVariants
+      storedObjectService.forget(key);
+      imageVariantService.deleteVariants(key);
+      outboxRepository.delete(entry);
+    } catch (RuntimeException e) {
+      int attempts = entry.getAttempts() + 1;
+      long delay = retryBackoffSeconds << Math.min(attempts - 1, 10);
+      entry.setAttempts(attempts);
+      entry.setDueAt(LocalDateTime.now().plusSeconds(delay));
+      String error = String.valueOf(e.getMessage());
+      entry.setLastError(error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH));
+      outboxRepository.save(entry);
+      log.warn("Failed to delete storage object {} (attempt {}), retrying in {}s", key, attempts, delay);
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.educationalplatform.service;
+
+import com.educationalplatform.domain.model.Block;
+import com.educationalplatform.domain.model.StoredObject;
+import com.educationalplatform.repository.BlockRepository;
+import com.educationalplatform.repository.StoredObjectRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Index of uploaded storage objects. Keys and attributes are recorded when an object is
+ * uploaded, so serving it is a single GET by exact key instead of a prefix listing per request.
+ * Keys are never reused, so an entry stays valid until its object is deleted and can be cached
+ * in memory without invalidation on other nodes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoredObjectService {
+
+  private final StoredObjectRepository storedObjectRepository;
+  private final BlockRepository blockRepository;
+  private final FileStorageService fileStorageService;
+
+  private final Map<String, StoredObject> cache = new ConcurrentHashMap<>();
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void register(StoredObject object) {
+    storedObjectRepository.save(object);
+  }
+
+  /**
+   * Returns the attributes of {@code key}. Objects uploaded before the index existed are
+   * looked up in storage once and recorded.
+   */
+  public StoredObject get(String key) {
+    return find(key).orElseGet(() -> {
+      StoredObject object = storedObjectRepository.save(fileStorageService.statFile(key));
+      cache.put(key, object);
+      return object;
+    });
+  }
+
+  /**
+   * Returns the recorded attributes of {@code key} without looking into storage.
+   */
+  public Optional<StoredObject> find(String key) {
+    StoredObject cached = cache.get(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    Optional<StoredObject> object = storedObjectRepository.findById(key);
+    object.ifPresent(found -> cache.put(key, found));
+    return object;
+  }
+
+  /**
+   * Records an object derived from another one. Returns {@code false} if the source has been
+   * deleted in the meantime; the caller then removes the derived object itself. The source row
+   * stays locked until the insert commits, so a concurrent {@link #forget} of the source either
+   * waits for it or makes this method return {@code false}.
+   */
+  @Transactional
+  public boolean registerDerived(StoredObject object) {
+    if (storedObjectRepository.findByIdForUpdate(object.getSourceKey()).isEmpty()) {
+      return false;
+    }
+    storedObjectRepository.save(object);
+    return true;
+  }
+
+  public List<StoredObject> findDerived(String sourceKey) {
+    return storedObjectRepository.findBySourceKey(sourceKey);
+  }
+
+  /**
+   * Drops the entry of a deleted object.
+   */
+  public void forget(String key) {
+    cache.remove(key);
+    storedObjectRepository.deleteById(key);
+  }
+
+  /**
+   * Finds and records the image key of a block whose image was uploaded before keys were
+   * stored on the block. Returns {@code null} if the block has no image.
+   */
+  public String resolveLegacyImageKey(Block block) {
+    if (!block.getHasImage()) {
+      return null;
+    }
+    String key = fileStorageService.findBlockImageKey(block.getId());
+    if (key != null) {
+      get(key);
+      blockRepository.setImageKeyIfAbsent(block.getId(), key);
+    }
+    return key;
+  }
+
+  /**
+   * Records the keys of block media uploaded before keys were stored on the block, so no
+   * request has to find them by listing the bucket. This takes one listing per block, so it
+   * runs in the background instead of delaying readiness. Images of blocks it fails on are
+   * resolved on first request.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void startLegacyMediaIndexing() {
+    Thread thread = new Thread(this::indexLegacyMedia, "legacy-media-index");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  void indexLegacyMedia() {
+    for (Block block : blockRepository.findWithUnindexedMedia()) {
+      try {
+        indexLegacyMedia(block);
+      } catch (RuntimeException e) {
+        log.warn("Failed to index media of block {}: {}", block.getId(), e.getMessage());
+      }
+    }
+  }
+
+  private void indexLegacyMedia(Block block) {
+    if (block.getImageKey() == null) {
+      resolveLegacyImageKey(block);
+    }
+    if (block.getHasVideo() && block.getVideoKey() == null) {
+      String key = fileStorageService.findVideoKey(block.getId());
+      if (key != null) {
+        get(key);
+        blockRepository.setVideoKeyIfAbsent(block.getId(), key);
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.educationalplatform.service;
+
+import com.educationalplatform.domain.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded LRU cache of users for the authentication path. Entries expire after
+ * {@code jwt.user-cache.ttl-seconds} and are dropped right away through {@link #evict(UUID)}
+ * when a user is changed. Unknown users are not cached.
+ */
+@Component
+public class UserCache {
+
+  private record Entry(User user, long expiresAtNanos) {
+  }
+
+  private final Map<UUID, Entry> entries;
+  private final long ttlNanos;
+
+  private final Counter hits;
+  private final Counter misses;
+
+  public UserCache(
+      @Value("${jwt.user-cache.max-entries:10000}") int maxEntries,
+      @Value("${jwt.user-cache.ttl-seconds:60}") long ttlSeconds,
+      MeterRegistry meterRegistry) {
+    this.entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    });
+    this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    this.hits = Counter.builder("user.cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("user.cache.requests").tag("result", "miss").register(meterRegistry);
+    Gauge.builder("user.cache.entries", entries, Map::size).register(meterRegistry);
+  }
+
+  public Optional<User> get(UUID userId, Supplier<Optional<User>> loader) {
+    Entry entry = entries.get(userId);
+    if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+      hits.increment();
+      return Optional.of(entry.user());
+    }
+    misses.increment();
+    Optional<User> user = loader.get();
+    if (user.isPresent()) {
+      entries.put(userId, new Entry(user.get(), System.nanoTime() + ttlNanos));
+    } else {
+      entries.remove(userId);
+    }
+    return user;
+  }
+
+  public void evict(UUID userId) {
+    entries.remove(userId);
+  }
+}
@@ -11,17 +11,29 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
   private final UserRepository userRepository;
+  private final UserCache userCache;
 
   @Transactional(readOnly = true)
   public Optional<User> findById(UUID id) {
     return userRepository.findById(id);
   }
 
+  /**
+   * Returns the user from {@link UserCache}, loading it on a miss. Meant for request
+   * authentication; the returned user may be up to the cache TTL old unless it was changed
+   * through {@link #updateUser}.
+   */
+  public Optional<User> findCachedById(UUID id) {
+    return userCache.get(id, () -> userRepository.findById(id));
+  }
+
   @Transactional(readOnly = true)
   public Page<User> getAllUsers(Pageable pageable) {
     return userRepository.findAll(pageable);
@@ -39,6 +51,24 @@ public class UserService {
     if (dto.getRole() != null) user.setRole(dto.getRole());
     if (dto.getPaymentDate() != null) user.setPaymentDate(dto.getPaymentDate());
 
-    return userRepository.save(user);
+    User saved = userRepository.save(user);
+    evictAfterCommit(userId);
+    return saved;
+  }
+
+  /**
+   * Evicts now and once more after commit, so that a concurrent request cannot put back a
+   * user read before the change was committed.
+   */
+  private void evictAfterCommit(UUID userId) {
+    userCache.evict(userId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          userCache.evict(userId);
+        }
+      });
+    }
   }
 }
@@ -0,0 +1,87 @@
+package com.educationalplatform.service;
+
+import com.educationalplatform.utils.JwtPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded LRU cache of verified tokens, keyed by the SHA-256 of the token so the cache never
+ * holds the tokens themselves. An entry lives for {@code jwt.token-cache.ttl-seconds} but never
+ * past the token's own expiry. Only successful verifications are cached: invalid tokens would
+ * otherwise let a client flood the cache.
+ */
+@Component
+public class VerifiedTokenCache {
+
+  private record Entry(JwtPrincipal principal, long expiresAtMillis) {
+  }
+
+  private final Map<String, Entry> entries;
+  private final long ttlMillis;
+
+  private final Counter hits;
+  private final Counter misses;
+
+  public VerifiedTokenCache(
+      @Value("${jwt.token-cache.max-entries:10000}") int maxEntries,
+      @Value("${jwt.token-cache.ttl-seconds:300}") long ttlSeconds,
+      MeterRegistry meterRegistry) {
+    this.entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    });
+    this.ttlMillis = ttlSeconds * 1000;
+    this.hits = Counter.builder("jwt.token.cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("jwt.token.cache.requests").tag("result", "miss").register(meterRegistry);
+    Gauge.builder("jwt.token.cache.entries", entries, Map::size).register(meterRegistry);
+  }
+
+  public Optional<JwtPrincipal> verify(String token, Function<String, Optional<JwtPrincipal>> verifier) {
+    String key = digest(token);
+    long now = System.currentTimeMillis();
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      if (entry.expiresAtMillis() > now) {
+        hits.increment();
+        return Optional.of(entry.principal());
+      }
+      entries.remove(key);
+    }
+    misses.increment();
+
+    Optional<JwtPrincipal> principal = verifier.apply(token);
+    principal.ifPresent(verified -> {
+      long expiresAt = now + ttlMillis;
+      if (verified.expiresAt() != null) {
+        expiresAt = Math.min(expiresAt, verified.expiresAt().toEpochMilli());
+      }
+      if (expiresAt > now) {
+        entries.put(key, new Entry(verified, expiresAt));
+      }
+    });
+    return principal;
+  }
+
+  private static String digest(String token) {
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.educationalplatform.service;
+
+import java.util.Optional;
+
+/**
+ * Pending VK OAuth logins: the PKCE code verifier for each issued {@code state}. A state is
+ * valid for {@code vk.auth-state.ttl-seconds} and can be used once.
+ */
+public interface VkAuthStateStore {
+
+  void save(String state, String codeVerifier);
+
+  /**
+   * Removes the state and returns its code verifier, or empty if the state is unknown, already
+   * used or expired. Concurrent calls with the same state succeed at most once.
+   */
+  Optional<String> take(String state);
+}
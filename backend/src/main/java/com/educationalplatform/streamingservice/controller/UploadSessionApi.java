@@ -0,0 +1,93 @@
+package com.educationalplatform.streamingservice.controller;
+
+import com.educationalplatform.streamingservice.model.dto.CreateUploadSessionRequest;
+import com.educationalplatform.streamingservice.model.dto.UploadSessionDTO;
+import com.educationalplatform.streamingservice.model.dto.VideoDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.UUID;
+
+@Tag(name = "Video Upload Sessions API", description = "Возобновляемая загрузка видео по частям")
+@RequestMapping("/api/v1/videos/upload-sessions")
+@RestController
+public interface UploadSessionApi {
+
+  @Operation(summary = "Создать сессию загрузки",
+      description = "Возвращает размер части и число частей. Все части, кроме последней, должны иметь "
+          + "ровно partSize байт")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Сессия создана",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = UploadSessionDTO.class))}),
+      @ApiResponse(responseCode = "400", description = "Некорректные параметры или слишком большой файл")
+  })
+  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  ResponseEntity<UploadSessionDTO> createSession(
+      @Valid @RequestBody CreateUploadSessionRequest request,
+      @Parameter(hidden = true) Principal principal);
+
+  @Operation(summary = "Получить состояние сессии",
+      description = "Содержит номера полученных и недостающих частей")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Состояние сессии получено",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = UploadSessionDTO.class))}),
+      @ApiResponse(responseCode = "404", description = "Сессия не найдена")
+  })
+  @GetMapping("/{sessionId}")
+  ResponseEntity<UploadSessionDTO> getSession(
+      @PathVariable("sessionId") UUID sessionId,
+      @Parameter(hidden = true) Principal principal);
+
+  @Operation(summary = "Загрузить часть",
+      description = "Части можно отправлять в любом порядке и параллельно; повторная отправка заменяет часть")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "Часть сохранена, ETag части в заголовке ETag"),
+      @ApiResponse(responseCode = "400", description = "Неверный номер или размер части"),
+      @ApiResponse(responseCode = "404", description = "Сессия не найдена"),
+      @ApiResponse(responseCode = "409", description = "Сессия уже завершена")
+  })
+  @PutMapping(value = "/{sessionId}/parts/{partNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  ResponseEntity<Void> uploadPart(
+      @PathVariable("sessionId") UUID sessionId,
+      @PathVariable("partNumber") Integer partNumber,
+      @Parameter(hidden = true) InputStream body,
+      @Parameter(hidden = true) Principal principal);
+
+  @Operation(summary = "Завершить загрузку",
+      description = "Собирает объект из частей и регистрирует видео. Повторный вызов возвращает то же видео")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Видео загружено",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = VideoDTO.class))}),
+      @ApiResponse(responseCode = "404", description = "Сессия не найдена"),
+      @ApiResponse(responseCode = "409", description = "Получены не все части или сессия уже завершается")
+  })
+  @PostMapping("/{sessionId}/complete")
+  ResponseEntity<VideoDTO> completeSession(
+      @PathVariable("sessionId") UUID sessionId,
+      @Parameter(hidden = true) Principal principal);
+
+  @Operation(summary = "Отменить загрузку")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "Сессия отменена"),
+      @ApiResponse(responseCode = "404", description = "Сессия не найдена"),
+      @ApiResponse(responseCode = "409", description = "Сессия уже завершена")
+  })
+  @DeleteMapping("/{sessionId}")
+  ResponseEntity<Void> abortSession(
+      @PathVariable("sessionId") UUID sessionId,
+      @Parameter(hidden = true) Principal principal);
+}
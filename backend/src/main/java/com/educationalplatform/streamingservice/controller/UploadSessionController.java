@@ -0,0 +1,47 @@
+package com.educationalplatform.streamingservice.controller;
+
+import com.educationalplatform.streamingservice.model.dto.CreateUploadSessionRequest;
+import com.educationalplatform.streamingservice.model.dto.UploadSessionDTO;
+import com.educationalplatform.streamingservice.model.dto.VideoDTO;
+import com.educationalplatform.streamingservice.service.UploadSessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.UUID;
+
+@RestController
+@RequiredArgsConstructor
+public class UploadSessionController implements UploadSessionApi {
+
+  private final UploadSessionService uploadSessionService;
+
+  @Override
+  public ResponseEntity<UploadSessionDTO> createSession(CreateUploadSessionRequest request, Principal principal) {
+    return ResponseEntity.ok(uploadSessionService.createSession(request, principal.getName()));
+  }
+
+  @Override
+  public ResponseEntity<UploadSessionDTO> getSession(UUID sessionId, Principal principal) {
+    return ResponseEntity.ok(uploadSessionService.getSession(sessionId, principal.getName()));
+  }
+
+  @Override
+  public ResponseEntity<Void> uploadPart(UUID sessionId, Integer partNumber, InputStream body, Principal principal) {
+    String etag = uploadSessionService.uploadPart(sessionId, partNumber, body, principal.getName());
+    return ResponseEntity.noContent().eTag(etag).build();
+  }
+
+  @Override
+  public ResponseEntity<VideoDTO> completeSession(UUID sessionId, Principal principal) {
+    return ResponseEntity.ok(uploadSessionService.completeSession(sessionId, principal.getName()));
+  }
+
+  @Override
+  public ResponseEntity<Void> abortSession(UUID sessionId, Principal principal) {
+    uploadSessionService.abortSession(sessionId, principal.getName());
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -10,13 +10,17 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.security.Principal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Tag(name = "Video API", description = "Управление видео и потоковой передачей")
 @RequestMapping("/api/v1/videos")
@@ -42,17 +46,44 @@ public interface VideoApi {
   @GetMapping("/{id}")
   ResponseEntity<VideoInfoDTO> getVideoInfo(@PathVariable("id") Long id);
 
-  @Operation(summary = "Получить зашифрованный чанк видео")
+  @Operation(summary = "Получить зашифрованный чанк видео",
+      description = "При Accept: application/octet-stream тело содержит сырой шифротекст, "
+          + "а индекс чанка, IV (Base64) и признак последнего чанка передаются в заголовках "
+          + "X-Chunk-Index, X-Chunk-IV и X-Last-Chunk. Иначе возвращается JSON")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Чанк видео получен",
           content = {@Content(mediaType = "application/json",
-              schema = @Schema(implementation = ChunkResponseDTO.class))}),
+              schema = @Schema(implementation = ChunkResponseDTO.class)),
+              @Content(mediaType = "application/octet-stream",
+                  schema = @Schema(type = "string", format = "binary"))}),
       @ApiResponse(responseCode = "404", description = "Видео или чанк не найден")
   })
-  @GetMapping("/{id}/stream/{chunkIndex}")
-  ResponseEntity<ChunkResponseDTO> getVideoChunk(
+  @GetMapping(value = "/{id}/stream/{chunkIndex}",
+      produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+  CompletableFuture<ResponseEntity<?>> getVideoChunk(
       @PathVariable("id") Long id,
-      @PathVariable("chunkIndex") Integer chunkIndex);
+      @PathVariable("chunkIndex") Integer chunkIndex,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+      @Parameter(hidden = true) Principal principal);
+
+  @Operation(summary = "Получить несколько зашифрованных чанков одним ответом",
+      description = "Чанки from..to (включительно) читаются из хранилища одним запросом и отдаются "
+          + "последовательностью кадров: int32 индекс, int8 флаги (бит 0 — последний чанк), "
+          + "int8 длина IV, IV, int32 длина шифротекста, шифротекст (big-endian)")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Чанки видео получены",
+          content = {@Content(mediaType = "application/octet-stream",
+              schema = @Schema(type = "string", format = "binary"))}),
+      @ApiResponse(responseCode = "400", description = "Некорректный или слишком большой диапазон"),
+      @ApiResponse(responseCode = "404", description = "Видео или чанк не найден")
+  })
+  @GetMapping(value = "/{id}/stream", params = {"from", "to"},
+      produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  ResponseEntity<StreamingResponseBody> getVideoChunkBatch(
+      @PathVariable("id") Long id,
+      @Parameter(description = "Индекс первого чанка") @RequestParam("from") Integer from,
+      @Parameter(description = "Индекс последнего чанка (включительно)") @RequestParam("to") Integer to,
+      @Parameter(hidden = true) Principal principal);
 
   @Operation(summary = "Получить MIME тип видео")
   @ApiResponses(value = {
@@ -66,10 +97,52 @@ public interface VideoApi {
   @Operation(summary = "Стриминг видео для воспроизведения")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Видео отдано для воспроизведения"),
-      @ApiResponse(responseCode = "404", description = "Видео не найдено")
+      @ApiResponse(responseCode = "206", description = "Отдан запрошенный диапазон байт (Range)"),
+      @ApiResponse(responseCode = "404", description = "Видео не найдено"),
+      @ApiResponse(responseCode = "416", description = "Запрошенный диапазон вне размера видео")
   })
   @GetMapping("/{id}/stream")
-  ResponseEntity<Resource> streamVideo(@PathVariable("id") Long id);
+  ResponseEntity<StreamingResponseBody> streamVideo(
+      @PathVariable("id") Long id,
+      @Parameter(hidden = true) @RequestHeader HttpHeaders headers);
+
+  @Operation(summary = "Получить HLS-плейлист видео",
+      description = "VOD-плейлист сегментов fMP4; адреса init-сегмента и сегментов в нём относительные")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Плейлист получен",
+          content = {@Content(mediaType = "application/vnd.apple.mpegurl")}),
+      @ApiResponse(responseCode = "304", description = "Плейлист не изменился (If-None-Match)"),
+      @ApiResponse(responseCode = "404", description = "Видео не найдено или ещё не упаковано в HLS")
+  })
+  @GetMapping("/{id}/hls/index.m3u8")
+  ResponseEntity<StreamingResponseBody> getHlsPlaylist(
+      @PathVariable("id") Long id,
+      @Parameter(hidden = true) @RequestHeader HttpHeaders headers);
+
+  @Operation(summary = "Получить init-сегмент HLS (fMP4)")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Init-сегмент получен",
+          content = {@Content(mediaType = "video/mp4")}),
+      @ApiResponse(responseCode = "304", description = "Init-сегмент не изменился (If-None-Match)"),
+      @ApiResponse(responseCode = "404", description = "Видео не найдено или ещё не упаковано в HLS")
+  })
+  @GetMapping("/{id}/hls/init.mp4")
+  ResponseEntity<StreamingResponseBody> getHlsInitSegment(
+      @PathVariable("id") Long id,
+      @Parameter(hidden = true) @RequestHeader HttpHeaders headers);
+
+  @Operation(summary = "Получить медиасегмент HLS (fMP4)")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Сегмент получен",
+          content = {@Content(mediaType = "video/iso.segment")}),
+      @ApiResponse(responseCode = "304", description = "Сегмент не изменился (If-None-Match)"),
+      @ApiResponse(responseCode = "404", description = "Видео или сегмент не найден")
+  })
+  @GetMapping("/{id}/hls/{index:\\d+}.m4s")
+  ResponseEntity<StreamingResponseBody> getHlsSegment(
+      @PathVariable("id") Long id,
+      @Parameter(description = "Номер сегмента в плейлисте") @PathVariable("index") Integer index,
+      @Parameter(hidden = true) @RequestHeader HttpHeaders headers);
 
   @Operation(summary = "Загрузить новое видео")
   @ApiResponses(value = {
@@ -84,4 +157,22 @@ public interface VideoApi {
       @Parameter(description = "Название видео") @RequestParam("title") String title,
       @Parameter(description = "Описание видео") @RequestParam(value = "description", required = false) String description
   );
+
+  @Operation(summary = "Загрузить новое видео потоком",
+      description = "Тело запроса — сам файл видео (не multipart/form-data). Файл передаётся в хранилище "
+          + "частями по мере получения, поэтому размер не ограничен лимитом multipart-загрузки")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Видео успешно загружено",
+          content = {@Content(mediaType = "application/json",
+              schema = @Schema(implementation = VideoDTO.class))}),
+      @ApiResponse(responseCode = "400", description = "Ошибка при загрузке видео")
+  })
+  @PostMapping(value = "/upload-stream", consumes = {"video/*", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+  ResponseEntity<VideoDTO> uploadVideoStream(
+      @Parameter(hidden = true) InputStream body,
+      @Parameter(hidden = true) @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+      @Parameter(description = "Название видео") @RequestParam("title") String title,
+      @Parameter(description = "Описание видео") @RequestParam(value = "description", required = false) String description,
+      @Parameter(description = "Исходное имя файла") @RequestParam(value = "fileName", required = false) String fileName
+  );
 }
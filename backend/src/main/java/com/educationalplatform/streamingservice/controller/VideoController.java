@@ -3,19 +3,30 @@ package com.educationalplatform.streamingservice.controller;
 import com.educationalplatform.streamingservice.model.dto.ChunkResponseDTO;
 import com.educationalplatform.streamingservice.model.dto.VideoDTO;
 import com.educationalplatform.streamingservice.model.dto.VideoInfoDTO;
+import com.educationalplatform.streamingservice.service.HlsService;
 import com.educationalplatform.streamingservice.service.VideoService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
 public class VideoController implements VideoApi {
 
+  private static final String ANONYMOUS_VIEWER = "anonymous";
+
   private final VideoService videoService;
 
   @Override
@@ -29,8 +40,17 @@ public class VideoController implements VideoApi {
   }
 
   @Override
-  public ResponseEntity<ChunkResponseDTO> getVideoChunk(Long id, Integer chunkIndex) {
-    return ResponseEntity.ok(videoService.getEncryptedChunk(id, chunkIndex));
+  public CompletableFuture<ResponseEntity<?>> getVideoChunk(Long id, Integer chunkIndex, String accept,
+      Principal principal) {
+    boolean binary = prefersBinary(accept);
+    return videoService.getEncryptedChunk(id, chunkIndex, viewerId(principal))
+        .thenApply(chunk -> toChunkResponse(chunk, binary));
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> getVideoChunkBatch(Long id, Integer from, Integer to,
+      Principal principal) {
+    return videoService.streamChunkBatch(id, from, to, viewerId(principal));
   }
 
   @Override
@@ -39,12 +59,78 @@ public class VideoController implements VideoApi {
   }
 
   @Override
-  public ResponseEntity<Resource> streamVideo(Long id) {
-    return videoService.streamVideo(id);
+  public ResponseEntity<StreamingResponseBody> streamVideo(Long id, HttpHeaders headers) {
+    return videoService.streamVideo(id, headers);
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> getHlsPlaylist(Long id, HttpHeaders headers) {
+    return videoService.streamHls(id, HlsService.PLAYLIST, HlsService.PLAYLIST_TYPE, headers);
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> getHlsInitSegment(Long id, HttpHeaders headers) {
+    return videoService.streamHls(id, HlsService.INIT_SEGMENT, HlsService.INIT_SEGMENT_TYPE, headers);
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> getHlsSegment(Long id, Integer index, HttpHeaders headers) {
+    return videoService.streamHls(id, HlsService.segmentName(index), HlsService.SEGMENT_TYPE, headers);
   }
 
   @Override
   public ResponseEntity<VideoDTO> uploadVideo(MultipartFile file, String title, String description) {
     return ResponseEntity.ok(videoService.uploadNewVideo(file, title, description));
   }
+
+  @Override
+  public ResponseEntity<VideoDTO> uploadVideoStream(InputStream body, String contentType, String title,
+      String description, String fileName) {
+    return ResponseEntity.ok(videoService.uploadVideoStream(body, contentType, fileName, title, description));
+  }
+
+  private static ResponseEntity<?> toChunkResponse(ChunkResponseDTO chunk, boolean binary) {
+    if (binary) {
+      return ResponseEntity.ok()
+          .contentType(MediaType.APPLICATION_OCTET_STREAM)
+          .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+          .header(ChunkResponseDTO.HEADER_CHUNK_INDEX, String.valueOf(chunk.getChunkIndex()))
+          .header(ChunkResponseDTO.HEADER_IV, Base64.getEncoder().encodeToString(chunk.getInitializationVector()))
+          .header(ChunkResponseDTO.HEADER_LAST_CHUNK, String.valueOf(chunk.getIsLastChunk()))
+          .body(chunk.getEncryptedData());
+    }
+
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+        .body(chunk);
+  }
+
+  private static String viewerId(Principal principal) {
+    return principal != null ? principal.getName() : ANONYMOUS_VIEWER;
+  }
+
+  /**
+   * Бинарный формат отдаётся только тем клиентам, которые явно предпочитают
+   * application/octet-stream; старые клиенты (без Accept или с произвольным типом) получают JSON.
+   */
+  private boolean prefersBinary(String accept) {
+    if (accept == null || accept.isBlank()) {
+      return false;
+    }
+    List<MediaType> mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+    mediaTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+    for (MediaType mediaType : mediaTypes) {
+      if (mediaType.getQualityValue() == 0) {
+        continue;
+      }
+      if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_OCTET_STREAM)) {
+        return true;
+      }
+      if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+        return false;
+      }
+    }
+    return false;
+  }
 }
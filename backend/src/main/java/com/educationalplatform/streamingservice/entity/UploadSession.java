@@ -0,0 +1,89 @@
+package com.educationalplatform.streamingservice.entity;
+
+import com.educationalplatform.streamingservice.model.enums.UploadSessionStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "upload_sessions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+
+  @Id
+  private UUID id;
+
+  @Column(name = "owner_id", nullable = false, length = 64)
+  private String ownerId;
+
+  @Column(name = "object_name", nullable = false, unique = true, length = 500)
+  private String objectName;
+
+  @Column(name = "upload_id", nullable = false, length = 255)
+  private String uploadId;
+
+  @Column(name = "title", nullable = false, length = 255)
+  private String title;
+
+  @Column(name = "description", columnDefinition = "TEXT")
+  private String description;
+
+  @Column(name = "content_type", length = 50)
+  private String contentType;
+
+  @Column(name = "file_size", nullable = false)
+  private Long fileSize;
+
+  @Column(name = "part_size", nullable = false)
+  private Integer partSize;
+
+  @Column(name = "total_parts", nullable = false)
+  private Integer totalParts;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false, length = 20)
+  @Builder.Default
+  private UploadSessionStatus status = UploadSessionStatus.ACTIVE;
+
+  @Column(name = "video_id")
+  private Long videoId;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+
+  @PrePersist
+  protected void onCreate() {
+    createdAt = LocalDateTime.now();
+    if (status == null) {
+      status = UploadSessionStatus.ACTIVE;
+    }
+  }
+
+  /**
+   * Размер части {@code partNumber}: все части, кроме последней, имеют размер {@link #partSize}.
+   */
+  public int expectedPartLength(int partNumber) {
+    if (partNumber < totalParts) {
+      return partSize;
+    }
+    return (int) (fileSize - (long) (totalParts - 1) * partSize);
+  }
+}
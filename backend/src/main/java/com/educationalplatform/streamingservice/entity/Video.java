@@ -2,6 +2,7 @@ package com.educationalplatform.streamingservice.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -16,10 +17,13 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import com.educationalplatform.streamingservice.model.enums.EncryptionMode;
+import com.educationalplatform.streamingservice.model.enums.StorageLayout;
 import com.educationalplatform.streamingservice.model.enums.VideoFormat;
 import com.educationalplatform.streamingservice.model.enums.VideoStatus;
 
 @Entity
+@EntityListeners(VideoChangeListener.class)
 @Table(name = "videos")
 @Getter
 @Setter
@@ -68,6 +72,34 @@ public class Video {
   @Column(name = "chunk_size", nullable = false)
   private Integer chunkSize;
 
+  @Enumerated(EnumType.STRING)
+  @Column(name = "storage_layout", nullable = false, length = 30)
+  @Builder.Default
+  private StorageLayout storageLayout = StorageLayout.PLAIN;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "encryption_mode", length = 10)
+  private EncryptionMode encryptionMode;
+
+  @Column(name = "segments_path", length = 500)
+  private String segmentsPath;
+
+  @Column(name = "hls_path", length = 500)
+  private String hlsPath;
+
+  @Column(name = "checksum_sha256", length = 64)
+  private String checksumSha256;
+
+  @Column(name = "processing_attempts", nullable = false)
+  @Builder.Default
+  private Integer processingAttempts = 0;
+
+  @Column(name = "processing_error", length = 1000)
+  private String processingError;
+
+  @Column(name = "next_attempt_at")
+  private LocalDateTime nextAttemptAt;
+
   @Column(name = "created_at", nullable = false, updatable = false)
   private LocalDateTime createdAt;
 
@@ -83,6 +115,12 @@ public class Video {
     if (status == null) {
       status = VideoStatus.PENDING;
     }
+    if (storageLayout == null) {
+      storageLayout = StorageLayout.PLAIN;
+    }
+    if (processingAttempts == null) {
+      processingAttempts = 0;
+    }
   }
 
   @PreUpdate
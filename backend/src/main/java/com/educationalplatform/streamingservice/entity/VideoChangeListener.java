@@ -0,0 +1,44 @@
+package com.educationalplatform.streamingservice.entity;
+
+import com.educationalplatform.streamingservice.service.VideoChunkCache;
+import com.educationalplatform.streamingservice.service.VideoMetadataCache;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Сбрасывает кэши метаданных и чанков при изменении или удалении строки videos.
+ * Сброс повторяется после коммита, чтобы конкурентный читатель не вернул в кэш
+ * снимок, прочитанный до завершения транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+public class VideoChangeListener {
+
+  private final VideoMetadataCache metadataCache;
+  private final VideoChunkCache chunkCache;
+
+  @PostUpdate
+  @PostRemove
+  public void onVideoChanged(Video video) {
+    Long videoId = video.getId();
+    invalidate(videoId);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          invalidate(videoId);
+        }
+      });
+    }
+  }
+
+  private void invalidate(Long videoId) {
+    metadataCache.invalidate(videoId);
+    chunkCache.invalidate(videoId);
+  }
+}
@@ -0,0 +1,11 @@
+package com.educationalplatform.streamingservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+  public ConflictException(final String message) {
+    super(message);
+  }
+}
@@ -18,7 +18,7 @@ import java.util.Map;
 
 @Slf4j
 @RestControllerAdvice
-public class GlobalExceptionHandler {
+public class VideoExceptionHandler {
 
   @ExceptionHandler(ResourceNotFoundException.class)
   public ResponseEntity<Object> handleResourceNotFound(ResourceNotFoundException ex, HttpServletRequest request) {
@@ -26,6 +26,12 @@ public class GlobalExceptionHandler {
     return buildResponseEntity(HttpStatus.NOT_FOUND, ex.getMessage(), request.getRequestURI());
   }
 
+  @ExceptionHandler(ConflictException.class)
+  public ResponseEntity<Object> handleConflict(ConflictException ex, HttpServletRequest request) {
+    log.warn("Conflict: {}", ex.getMessage());
+    return buildResponseEntity(HttpStatus.CONFLICT, ex.getMessage(), request.getRequestURI());
+  }
+
   @ExceptionHandler(IllegalArgumentException.class)
   public ResponseEntity<Object> handleIllegalArgument(IllegalArgumentException ex, HttpServletRequest request) {
     log.warn("Invalid argument: {}", ex.getMessage());
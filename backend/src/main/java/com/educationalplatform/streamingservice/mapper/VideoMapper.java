@@ -16,6 +16,7 @@ public class VideoMapper {
     return VideoDTO.builder()
         .id(video.getId())
         .title(video.getTitle())
+        .status(video.getStatus())
         .formattedDuration(video.getFormattedDuration()) // или formatDuration(video.getDurationSeconds())
         .build();
   }
@@ -34,6 +35,7 @@ public class VideoMapper {
         .mimeType(video.getMimeType())
         .totalChunks(video.getTotalChunks())
         .isReady(video.isReadyForStreaming())
+        .hlsAvailable(video.getHlsPath() != null)
         .build();
   }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.educationalplatform.streamingservice.model;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.enums.EncryptionMode;
+import com.educationalplatform.streamingservice.model.enums.StorageLayout;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемый снимок полей {@link Video}, нужных для отдачи видео и чанков.
+ */
+@Value
+@Builder
+public class VideoStreamMetadata {
+
+  Long id;
+  String title;
+  String filePath;
+  long fileSize;
+  int chunkSize;
+  int totalChunks;
+  String encryptionKey;
+  String mimeType;
+  LocalDateTime updatedAt;
+  StorageLayout storageLayout;
+  EncryptionMode encryptionMode;
+  String segmentsPath;
+  String hlsPath;
+
+  public static VideoStreamMetadata fromEntity(final Video video) {
+    return VideoStreamMetadata.builder()
+        .id(video.getId())
+        .title(video.getTitle())
+        .filePath(video.getFilePath())
+        .fileSize(video.getFileSize())
+        .chunkSize(video.getChunkSize())
+        .totalChunks(video.getTotalChunks())
+        .encryptionKey(video.getEncryptionKey())
+        .mimeType(video.getMimeType())
+        .updatedAt(video.getUpdatedAt())
+        .storageLayout(video.getStorageLayout() != null ? video.getStorageLayout() : StorageLayout.PLAIN)
+        .encryptionMode(video.getEncryptionMode())
+        .segmentsPath(video.getSegmentsPath())
+        .hlsPath(video.getHlsPath())
+        .build();
+  }
+
+  public boolean isPreEncrypted() {
+    return storageLayout == StorageLayout.ENCRYPTED_SEGMENTS;
+  }
+}
@@ -6,12 +6,27 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class ChunkResponseDTO {
 
+  /**
+   * Заголовки бинарного ответа (application/octet-stream): тело содержит только шифротекст,
+   * а остальные поля DTO передаются в этих заголовках.
+   */
+  public static final String HEADER_CHUNK_INDEX = "X-Chunk-Index";
+  public static final String HEADER_IV = "X-Chunk-IV";
+  public static final String HEADER_LAST_CHUNK = "X-Last-Chunk";
+  public static final String HEADER_CHUNK_FROM = "X-Chunk-From";
+  public static final String HEADER_CHUNK_TO = "X-Chunk-To";
+
+  private static final int FLAG_LAST_CHUNK = 1;
+
   @JsonProperty("chunkIndex")
   private Integer chunkIndex;
 
@@ -23,4 +38,18 @@ public class ChunkResponseDTO {
 
   @JsonProperty("isLastChunk")
   private Boolean isLastChunk;
-}
\ No newline at end of file
+
+  /**
+   * Записывает чанк кадром пакетного ответа (все числа big-endian):
+   * int32 индекс чанка, int8 флаги (бит 0 — последний чанк), int8 длина IV, IV,
+   * int32 длина шифротекста, шифротекст.
+   */
+  public void writeFrame(DataOutputStream out) throws IOException {
+    out.writeInt(chunkIndex);
+    out.writeByte(Boolean.TRUE.equals(isLastChunk) ? FLAG_LAST_CHUNK : 0);
+    out.writeByte(initializationVector.length);
+    out.write(initializationVector);
+    out.writeInt(encryptedData.length);
+    out.write(encryptedData);
+  }
+}
@@ -0,0 +1,26 @@
+package com.educationalplatform.streamingservice.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class CreateUploadSessionRequest {
+
+  @NotBlank
+  @Size(max = 255)
+  private String title;
+
+  private String description;
+
+  private String fileName;
+
+  @Size(max = 50)
+  private String contentType;
+
+  @NotNull
+  @Positive
+  private Long fileSize;
+}
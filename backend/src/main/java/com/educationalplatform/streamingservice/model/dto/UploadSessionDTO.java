@@ -0,0 +1,46 @@
+package com.educationalplatform.streamingservice.model.dto;
+
+import com.educationalplatform.streamingservice.model.enums.UploadSessionStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSessionDTO {
+
+  @JsonProperty("id")
+  private UUID id;
+
+  @JsonProperty("status")
+  private UploadSessionStatus status;
+
+  @JsonProperty("fileSize")
+  private Long fileSize;
+
+  @JsonProperty("partSize")
+  private Integer partSize;
+
+  @JsonProperty("totalParts")
+  private Integer totalParts;
+
+  @JsonProperty("receivedParts")
+  private List<Integer> receivedParts;
+
+  @JsonProperty("missingParts")
+  private List<Integer> missingParts;
+
+  @JsonProperty("videoId")
+  private Long videoId;
+
+  @JsonProperty("expiresAt")
+  private LocalDateTime expiresAt;
+}
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.enums.EncryptionMode;
 
 @Data
 @NoArgsConstructor
@@ -37,6 +38,12 @@ public class VideoInfoDTO {
   @JsonProperty("isReady")
   private Boolean isReady;
 
+  @JsonProperty("encryptionMode")
+  private EncryptionMode encryptionMode;
+
+  @JsonProperty("hlsAvailable")
+  private Boolean hlsAvailable;
+
   public static VideoInfoDTO fromEntity(final Video video) {
     return VideoInfoDTO.builder()
         .id(video.getId())
@@ -47,6 +54,7 @@ public class VideoInfoDTO {
         .mimeType(video.getMimeType())
         .totalChunks(video.getTotalChunks())
         .isReady(video.isReadyForStreaming())
+        .hlsAvailable(video.getHlsPath() != null)
         .build();
   }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.educationalplatform.streamingservice.model.enums;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum EncryptionMode {
+  CBC("AES/CBC/PKCS5Padding", 16),
+  CTR("AES/CTR/NoPadding", 16),
+  GCM("AES/GCM/NoPadding", 12);
+
+  public static final int GCM_TAG_LENGTH_BITS = 128;
+
+  private final String transformation;
+  private final int ivLength;
+
+  EncryptionMode(final String transformation, final int ivLength) {
+    this.transformation = transformation;
+    this.ivLength = ivLength;
+  }
+
+  public String getTransformation() {
+    return transformation;
+  }
+
+  public int getIvLength() {
+    return ivLength;
+  }
+
+  public int getCiphertextLength(final int plaintextLength) {
+    return switch (this) {
+      case CBC -> (plaintextLength / 16 + 1) * 16;
+      case CTR -> plaintextLength;
+      case GCM -> plaintextLength + GCM_TAG_LENGTH_BITS / 8;
+    };
+  }
+
+  public static Optional<EncryptionMode> fromString(final String mode) {
+    if (mode == null || mode.isBlank()) {
+      return Optional.empty();
+    }
+
+    return Arrays.stream(EncryptionMode.values())
+        .filter(m -> m.name().equalsIgnoreCase(mode))
+        .findFirst();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s (%s)", name(), transformation);
+  }
+}
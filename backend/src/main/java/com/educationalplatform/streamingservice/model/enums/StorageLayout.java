@@ -0,0 +1,13 @@
+package com.educationalplatform.streamingservice.model.enums;
+
+public enum StorageLayout {
+  /**
+   * В хранилище лежит только исходный файл, чанки шифруются при каждом запросе.
+   */
+  PLAIN,
+  /**
+   * Чанки зашифрованы один раз при загрузке и лежат одним объектом кадрами [IV][шифротекст]
+   * с фиксированным шагом, поэтому отдача чанка — это чтение диапазона без шифрования.
+   */
+  ENCRYPTED_SEGMENTS
+}
@@ -0,0 +1,8 @@
+package com.educationalplatform.streamingservice.model.enums;
+
+public enum UploadSessionStatus {
+  ACTIVE,
+  COMPLETING,
+  ASSEMBLED,
+  COMPLETED
+}
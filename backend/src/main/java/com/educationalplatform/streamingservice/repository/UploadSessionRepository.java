@@ -0,0 +1,41 @@
+package com.educationalplatform.streamingservice.repository;
+
+import com.educationalplatform.streamingservice.entity.UploadSession;
+import com.educationalplatform.streamingservice.model.enums.UploadSessionStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+  List<UploadSession> findTop100ByExpiresAtBefore(LocalDateTime now);
+
+  /**
+   * Атомарно переводит сессию из статуса {@code from} в {@code to}; 0 означает, что
+   * сессию уже перевёл другой запрос.
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update UploadSession s set s.status = :to, s.expiresAt = :expiresAt where s.id = :id and s.status = :from")
+  int transition(@Param("id") UUID id, @Param("from") UploadSessionStatus from, @Param("to") UploadSessionStatus to,
+      @Param("expiresAt") LocalDateTime expiresAt);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update UploadSession s set s.expiresAt = :expiresAt where s.id = :id and s.status = :status")
+  int extend(@Param("id") UUID id, @Param("status") UploadSessionStatus status,
+      @Param("expiresAt") LocalDateTime expiresAt);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update UploadSession s set s.status = :status, s.videoId = :videoId, s.expiresAt = :expiresAt where s.id = :id")
+  int markCompleted(@Param("id") UUID id, @Param("status") UploadSessionStatus status, @Param("videoId") Long videoId,
+      @Param("expiresAt") LocalDateTime expiresAt);
+}
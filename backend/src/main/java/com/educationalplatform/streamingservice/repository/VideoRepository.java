@@ -1,9 +1,40 @@
 package com.educationalplatform.streamingservice.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.enums.VideoStatus;
 
 @Repository
 public interface VideoRepository extends JpaRepository<Video, Long> {
-}
\ No newline at end of file
+
+  long countByStatus(VideoStatus status);
+
+  Optional<Video> findByFilePath(String filePath);
+
+  @Query("select v.id from Video v where v.status = :status "
+      + "and (v.nextAttemptAt is null or v.nextAttemptAt <= :now) order by v.id")
+  List<Long> findDueIds(@Param("status") VideoStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+  /**
+   * Атомарно переводит видео из статуса {@code from} в {@code to}; 0 означает, что видео уже
+   * в другом статусе (например, его взял другой обработчик).
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update Video v set v.status = :to where v.id = :id and v.status = :from")
+  int transition(@Param("id") Long id, @Param("from") VideoStatus from, @Param("to") VideoStatus to);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update Video v set v.status = :to where v.status = :from")
+  int transitionAll(@Param("from") VideoStatus from, @Param("to") VideoStatus to);
+}
@@ -0,0 +1,42 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Считает SHA-256 исходного файла, чтобы позже можно было проверить целостность объекта в MinIO.
+ */
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class ChecksumStage implements VideoProcessingStage {
+
+  private final MinioStorageService minioStorageService;
+
+  @Override
+  public String name() {
+    return "checksum";
+  }
+
+  @Override
+  public boolean isDone(Video video) {
+    return video.getChecksumSha256() != null;
+  }
+
+  @Override
+  public void process(Video video) throws Exception {
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    try (InputStream in = new DigestInputStream(minioStorageService.getVideoInputStream(video.getFilePath()), digest)) {
+      in.transferTo(OutputStream.nullOutputStream());
+    }
+    video.setChecksumSha256(HexFormat.of().formatHex(digest.digest()));
+  }
+}
@@ -0,0 +1,51 @@
+package com.educationalplatform.streamingservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Выбирает размер чанка для нового видео. Если известен битрейт, чанк покрывает примерно
+ * {@code target-seconds} воспроизведения, иначе файл делится примерно на {@code target-count}
+ * чанков. Результат ограничен [min-size, max-size] и кратен {@link #ALIGNMENT}.
+ * Длительность MP4/MOV читается из {@code moov/mvhd} при регистрации видео, до сохранения
+ * размера; дальше размер чанка хранится в строке и не меняется.
+ */
+@Component
+public class ChunkSizePolicy {
+
+  static final int ALIGNMENT = 64 * 1024;
+
+  private final int minSize;
+  private final int maxSize;
+  private final int targetCount;
+  private final int targetSeconds;
+
+  public ChunkSizePolicy(
+      @Value("${video.chunk.min-size:262144}") int minSize,
+      @Value("${video.chunk.max-size:8388608}") int maxSize,
+      @Value("${video.chunk.target-count:512}") int targetCount,
+      @Value("${video.chunk.target-seconds:4}") int targetSeconds) {
+    this.minSize = Math.max(ALIGNMENT, minSize);
+    this.maxSize = Math.max(this.minSize, maxSize);
+    this.targetCount = Math.max(1, targetCount);
+    this.targetSeconds = Math.max(1, targetSeconds);
+  }
+
+  public int chooseChunkSize(long fileSize, Integer durationSeconds) {
+    long target;
+    if (durationSeconds != null && durationSeconds > 0) {
+      long bytesPerSecond = fileSize / durationSeconds;
+      target = bytesPerSecond * targetSeconds;
+    } else {
+      target = fileSize / targetCount;
+    }
+
+    long clamped = Math.max(minSize, Math.min(maxSize, target));
+    long aligned = (clamped + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    return (int) Math.min(aligned, maxSize);
+  }
+
+  public static int totalChunks(long fileSize, int chunkSize) {
+    return (int) Math.max(1, (fileSize + chunkSize - 1) / chunkSize);
+  }
+}
@@ -0,0 +1,169 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.service.Mp4Movie.Track;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сборка fragmented MP4 (ISO/IEC 14496-12) для HLS: init-сегмент с пустыми таблицами сэмплов
+ * и {@code mvex}, и медиасегменты {@code moof}+{@code mdat}, по одному {@code traf} на дорожку.
+ */
+final class Fmp4Writer {
+
+  private static final int TFHD_DEFAULT_BASE_IS_MOOF = 0x020000;
+  private static final int TRUN_FLAGS = 0x000001 | 0x000100 | 0x000200 | 0x000400 | 0x000800;
+  private static final int SYNC_SAMPLE_FLAGS = 0x02000000;
+  private static final int NON_SYNC_SAMPLE_FLAGS = 0x01010000;
+
+  /**
+   * Сэмплы [from, to) дорожки и их данные, записанные подряд.
+   */
+  record TrackFragment(Track track, int from, int to, byte[] data) {
+  }
+
+  private Fmp4Writer() {
+  }
+
+  static byte[] initSegment(Mp4Movie movie) {
+    List<byte[]> moov = new ArrayList<>();
+    moov.add(withZeroDuration(movie.mvhd, 16, 24));
+    List<byte[]> trex = new ArrayList<>();
+    for (Track track : movie.tracks) {
+      moov.add(trak(track));
+      trex.add(fullBox("trex", 0, 0, ints(track.trackId, 1, 0, 0, 0)));
+    }
+    moov.add(box("mvex", trex));
+
+    return concat(List.of(
+        box("ftyp", List.of(ascii("iso6"), ints(0), ascii("iso6"), ascii("mp41"))),
+        box("moov", moov)));
+  }
+
+  static byte[] mediaSegment(int sequenceNumber, List<TrackFragment> fragments) {
+    int moofSize = 8 + 16;
+    long dataSize = 0;
+    for (TrackFragment fragment : fragments) {
+      moofSize += trafSize(fragment.to() - fragment.from());
+      dataSize += fragment.data().length;
+    }
+    long totalSize = moofSize + 8 + dataSize;
+    if (totalSize > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Сегмент " + sequenceNumber + " слишком велик: " + totalSize + " байт");
+    }
+
+    ByteBuffer out = ByteBuffer.allocate((int) totalSize);
+    out.putInt(moofSize).put(ascii("moof"));
+    out.putInt(16).put(ascii("mfhd")).putInt(0).putInt(sequenceNumber);
+
+    long dataOffset = moofSize + 8;
+    for (TrackFragment fragment : fragments) {
+      Track track = fragment.track();
+      int count = fragment.to() - fragment.from();
+      out.putInt(trafSize(count)).put(ascii("traf"));
+      out.putInt(16).put(ascii("tfhd")).putInt(TFHD_DEFAULT_BASE_IS_MOOF).putInt(track.trackId);
+      out.putInt(20).put(ascii("tfdt")).putInt(1 << 24).putLong(track.decodeTimes[fragment.from()]);
+      out.putInt(20 + 16 * count).put(ascii("trun")).putInt(1 << 24 | TRUN_FLAGS).putInt(count)
+          .putInt((int) dataOffset);
+      for (int i = fragment.from(); i < fragment.to(); i++) {
+        out.putInt(track.durations[i])
+            .putInt(track.sizes[i])
+            .putInt(track.sync[i] ? SYNC_SAMPLE_FLAGS : NON_SYNC_SAMPLE_FLAGS)
+            .putInt(track.compositionOffsets[i]);
+      }
+      dataOffset += fragment.data().length;
+    }
+
+    out.putInt((int) (8 + dataSize)).put(ascii("mdat"));
+    for (TrackFragment fragment : fragments) {
+      out.put(fragment.data());
+    }
+    return out.array();
+  }
+
+  /**
+   * traf = tfhd (16) + tfdt версии 1 (20) + trun с четырьмя полями на сэмпл.
+   */
+  private static int trafSize(int sampleCount) {
+    return 8 + 16 + 20 + 20 + 16 * sampleCount;
+  }
+
+  private static byte[] trak(Track track) {
+    byte[] stbl = box("stbl", List.of(
+        track.stsd,
+        fullBox("stts", 0, 0, ints(0)),
+        fullBox("stsc", 0, 0, ints(0)),
+        fullBox("stsz", 0, 0, ints(0, 0)),
+        fullBox("stco", 0, 0, ints(0))));
+    List<byte[]> minf = new ArrayList<>(track.mediaHeaders);
+    minf.add(stbl);
+    byte[] mdia = box("mdia", List.of(withZeroDuration(track.mdhd, 16, 24), track.hdlr, box("minf", minf)));
+
+    List<byte[]> trak = new ArrayList<>();
+    trak.add(withZeroDuration(track.tkhd, 20, 28));
+    if (track.edts != null) {
+      trak.add(track.edts);
+    }
+    trak.add(mdia);
+    return box("trak", trak);
+  }
+
+  /**
+   * Копия full box'а с обнулённой длительностью: длительность фрагментированного файла задают
+   * сами фрагменты. Смещения поля указаны от начала содержимого для версий 0 и 1.
+   */
+  private static byte[] withZeroDuration(byte[] source, int offsetV0, int offsetV1) {
+    byte[] copy = source.clone();
+    ByteBuffer buffer = ByteBuffer.wrap(copy);
+    int headerLength = buffer.getInt(0) == 1 ? 16 : 8;
+    if (buffer.get(headerLength) == 1) {
+      buffer.putLong(headerLength + offsetV1, 0);
+    } else {
+      buffer.putInt(headerLength + offsetV0, 0);
+    }
+    return copy;
+  }
+
+  private static byte[] fullBox(String type, int version, int flags, byte[] payload) {
+    return box(type, List.of(ints(version << 24 | flags), payload));
+  }
+
+  private static byte[] box(String type, List<byte[]> children) {
+    int size = 8;
+    for (byte[] child : children) {
+      size += child.length;
+    }
+    ByteBuffer out = ByteBuffer.allocate(size);
+    out.putInt(size).put(ascii(type));
+    for (byte[] child : children) {
+      out.put(child);
+    }
+    return out.array();
+  }
+
+  private static byte[] concat(List<byte[]> parts) {
+    int size = 0;
+    for (byte[] part : parts) {
+      size += part.length;
+    }
+    ByteBuffer out = ByteBuffer.allocate(size);
+    for (byte[] part : parts) {
+      out.put(part);
+    }
+    return out.array();
+  }
+
+  private static byte[] ints(int... values) {
+    ByteBuffer out = ByteBuffer.allocate(4 * values.length);
+    for (int value : values) {
+      out.putInt(value);
+    }
+    return out.array();
+  }
+
+  private static byte[] ascii(String type) {
+    return type.getBytes(StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,75 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.exception.ResourceNotFoundException;
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отдаёт HLS-версию видео, подготовленную {@link HlsStage}: плейлист, init-сегмент и сегменты
+ * fMP4 лежат в хранилище под {@link VideoStreamMetadata#getHlsPath()} и после упаковки
+ * не меняются, поэтому кэшируются клиентом без перепроверки.
+ */
+@Service
+@RequiredArgsConstructor
+public class HlsService {
+
+  public static final String PLAYLIST = "index.m3u8";
+  public static final String INIT_SEGMENT = "init.mp4";
+
+  public static final MediaType PLAYLIST_TYPE = MediaType.parseMediaType("application/vnd.apple.mpegurl");
+  public static final MediaType INIT_SEGMENT_TYPE = MediaType.parseMediaType("video/mp4");
+  public static final MediaType SEGMENT_TYPE = MediaType.parseMediaType("video/iso.segment");
+
+  private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+
+  private final MinioStorageService minioStorageService;
+
+  public static String segmentName(int index) {
+    return index + ".m4s";
+  }
+
+  public static String hlsPathFor(String filePath) {
+    return filePath + ".hls";
+  }
+
+  public ResponseEntity<StreamingResponseBody> buildResponse(VideoStreamMetadata video, String fileName,
+      MediaType mediaType, HttpHeaders requestHeaders) {
+    if (video.getHlsPath() == null) {
+      throw new ResourceNotFoundException("HLS-версия видео " + video.getId() + " не готова");
+    }
+    String key = video.getHlsPath() + "/" + fileName;
+    String etag = "\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)).substring(0, 16) + "\"";
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(etag);
+    headers.setCacheControl(IMMUTABLE);
+    for (String tag : requestHeaders.getIfNoneMatch()) {
+      if ("*".equals(tag) || etag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+      }
+    }
+
+    // Объект открывается до ответа, чтобы отсутствующий сегмент вернул 404, а не обрыв тела
+    InputStream content = minioStorageService.getVideoInputStream(key);
+    headers.setContentType(mediaType);
+    return ResponseEntity.ok()
+        .headers(headers)
+        .body(out -> {
+          try (content) {
+            content.transferTo(out);
+          }
+        });
+  }
+}
@@ -0,0 +1,229 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.enums.VideoFormat;
+import com.educationalplatform.streamingservice.service.Fmp4Writer.TrackFragment;
+import com.educationalplatform.streamingservice.service.Mp4BoxReader.Box;
+import com.educationalplatform.streamingservice.service.Mp4Movie.Track;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Упаковывает MP4/MOV в HLS без перекодирования: {@code moov} разбирается на Java
+ * (см. {@link Mp4Movie}), сэмплы режутся на сегменты fMP4 длительностью не меньше
+ * {@code video.hls.segment-seconds} по ключевым кадрам видеодорожки, остальные дорожки режутся
+ * по тем же моментам времени. Сегменты, init-сегмент и VOD-плейлист кладутся в хранилище
+ * рядом с исходным файлом; плейлист пишется последним, и только после этого у видео
+ * появляется {@code hlsPath}. Контейнер, который не удаётся разобрать, не упаковывается:
+ * видео остаётся доступным через {@code /stream} и чанки.
+ */
+@Slf4j
+@Component
+@Order(4)
+public class HlsStage implements VideoProcessingStage {
+
+  /**
+   * Соседние сэмплы читаются одним ranged GET, если между ними не больше этого числа байт
+   * чужих данных (обычно это чередующиеся чанки звука).
+   */
+  private static final long MAX_READ_GAP = 1024 * 1024;
+  private static final long MAX_READ_SPAN = 32 * 1024 * 1024;
+
+  private final MinioStorageService minioStorageService;
+  private final Mp4BoxReader boxReader;
+  private final boolean enabled;
+  private final int segmentSeconds;
+  private final long maxMoovBytes;
+
+  public HlsStage(
+      MinioStorageService minioStorageService,
+      Mp4BoxReader boxReader,
+      @Value("${video.hls.enabled:true}") boolean enabled,
+      @Value("${video.hls.segment-seconds:6}") int segmentSeconds,
+      @Value("${video.hls.max-moov-bytes:67108864}") long maxMoovBytes) {
+    this.minioStorageService = minioStorageService;
+    this.boxReader = boxReader;
+    this.enabled = enabled;
+    this.segmentSeconds = Math.max(1, segmentSeconds);
+    this.maxMoovBytes = maxMoovBytes;
+  }
+
+  /**
+   * Границы сегмента: для каждой дорожки фильма сэмплы [from[i], to[i]).
+   */
+  private record Segment(int[] from, int[] to, double durationSeconds) {
+  }
+
+  @Override
+  public String name() {
+    return "hls";
+  }
+
+  @Override
+  public boolean isDone(Video video) {
+    boolean isoMedia = video.getFormat() == VideoFormat.MP4 || video.getFormat() == VideoFormat.MOV;
+    return !enabled || !isoMedia || video.getHlsPath() != null;
+  }
+
+  @Override
+  public void process(Video video) throws IOException {
+    String path = video.getFilePath();
+    Mp4Movie movie;
+    try {
+      movie = readMovie(path, video.getFileSize());
+    } catch (Mp4Movie.UnsupportedFormatException e) {
+      log.warn("Видео {} не упаковано в HLS: {}", video.getId(), e.getMessage());
+      return;
+    }
+
+    String hlsPath = HlsService.hlsPathFor(path);
+    upload(hlsPath, HlsService.INIT_SEGMENT, Fmp4Writer.initSegment(movie), HlsService.INIT_SEGMENT_TYPE.toString());
+
+    List<Segment> segments = plan(movie);
+    for (int index = 0; index < segments.size(); index++) {
+      Segment segment = segments.get(index);
+      List<TrackFragment> fragments = new ArrayList<>(movie.tracks.size());
+      for (int t = 0; t < movie.tracks.size(); t++) {
+        int from = segment.from()[t];
+        int to = segment.to()[t];
+        if (from < to) {
+          Track track = movie.tracks.get(t);
+          fragments.add(new TrackFragment(track, from, to, readSamples(path, track, from, to)));
+        }
+      }
+      upload(hlsPath, HlsService.segmentName(index), Fmp4Writer.mediaSegment(index + 1, fragments),
+          HlsService.SEGMENT_TYPE.toString());
+    }
+
+    upload(hlsPath, HlsService.PLAYLIST, playlist(segments).getBytes(StandardCharsets.UTF_8),
+        HlsService.PLAYLIST_TYPE.toString());
+    video.setHlsPath(hlsPath);
+    log.info("Видео {} упаковано в HLS: {} сегментов", video.getId(), segments.size());
+  }
+
+  private Mp4Movie readMovie(String path, long fileSize) throws IOException, Mp4Movie.UnsupportedFormatException {
+    Box moov = boxReader.findBox(path, 0, fileSize, "moov");
+    if (moov == null) {
+      throw new Mp4Movie.UnsupportedFormatException("нет moov");
+    }
+    if (moov.payloadSize() > maxMoovBytes) {
+      throw new Mp4Movie.UnsupportedFormatException("moov больше " + maxMoovBytes + " байт");
+    }
+    return Mp4Movie.parse(boxReader.read(path, moov.payloadOffset(), (int) moov.payloadSize()));
+  }
+
+  /**
+   * Режет опорную дорожку по первому ключевому кадру, отстоящему от начала сегмента не меньше
+   * чем на целевую длительность, и переносит эти моменты на остальные дорожки.
+   */
+  private List<Segment> plan(Mp4Movie movie) {
+    Track reference = movie.referenceTrack();
+    long target = segmentSeconds * reference.timescale;
+    List<Long> cuts = new ArrayList<>();
+    cuts.add(reference.decodeTimes[0]);
+    for (int i = 1; i < reference.sampleCount(); i++) {
+      if (reference.sync[i] && reference.decodeTimes[i] - cuts.get(cuts.size() - 1) >= target) {
+        cuts.add(reference.decodeTimes[i]);
+      }
+    }
+    long end = reference.decodeTimes[reference.sampleCount()];
+
+    int trackCount = movie.tracks.size();
+    int[] position = new int[trackCount];
+    List<Segment> segments = new ArrayList<>(cuts.size());
+    for (int s = 0; s < cuts.size(); s++) {
+      boolean last = s + 1 == cuts.size();
+      long segmentEnd = last ? end : cuts.get(s + 1);
+      int[] from = new int[trackCount];
+      int[] to = new int[trackCount];
+      for (int t = 0; t < trackCount; t++) {
+        Track track = movie.tracks.get(t);
+        from[t] = position[t];
+        int next = from[t];
+        if (last) {
+          next = track.sampleCount();
+        } else {
+          // Сэмпл попадает в сегмент, если начинается раньше его конца (в единицах опорной дорожки)
+          while (next < track.sampleCount()
+              && Math.multiplyExact(track.decodeTimes[next], reference.timescale)
+                  < Math.multiplyExact(segmentEnd, track.timescale)) {
+            next++;
+          }
+        }
+        to[t] = next;
+        position[t] = next;
+      }
+      segments.add(new Segment(from, to, (double) (segmentEnd - cuts.get(s)) / reference.timescale));
+    }
+    return segments;
+  }
+
+  /**
+   * Читает данные сэмплов подряд, объединяя близко лежащие сэмплы в один ranged GET.
+   */
+  private byte[] readSamples(String path, Track track, int from, int to) throws IOException {
+    long total = 0;
+    for (int i = from; i < to; i++) {
+      total += track.sizes[i];
+    }
+    if (total > Integer.MAX_VALUE - 1024) {
+      throw new IOException("Слишком большой сегмент дорожки " + track.trackId + ": " + total + " байт");
+    }
+    byte[] data = new byte[(int) total];
+    int position = 0;
+    int i = from;
+    while (i < to) {
+      long start = track.offsets[i];
+      long end = start + track.sizes[i];
+      int j = i + 1;
+      while (j < to
+          && track.offsets[j] >= end
+          && track.offsets[j] - end <= MAX_READ_GAP
+          && track.offsets[j] + track.sizes[j] - start <= MAX_READ_SPAN) {
+        end = track.offsets[j] + track.sizes[j];
+        j++;
+      }
+      byte[] span = boxReader.read(path, start, (int) (end - start));
+      for (int k = i; k < j; k++) {
+        System.arraycopy(span, (int) (track.offsets[k] - start), data, position, track.sizes[k]);
+        position += track.sizes[k];
+      }
+      i = j;
+    }
+    return data;
+  }
+
+  private String playlist(List<Segment> segments) {
+    double longest = 0;
+    for (Segment segment : segments) {
+      longest = Math.max(longest, segment.durationSeconds());
+    }
+    StringBuilder playlist = new StringBuilder()
+        .append("#EXTM3U\n")
+        .append("#EXT-X-VERSION:7\n")
+        .append("#EXT-X-TARGETDURATION:").append((long) Math.ceil(longest)).append('\n')
+        .append("#EXT-X-MEDIA-SEQUENCE:0\n")
+        .append("#EXT-X-PLAYLIST-TYPE:VOD\n")
+        .append("#EXT-X-INDEPENDENT-SEGMENTS\n")
+        .append("#EXT-X-MAP:URI=\"").append(HlsService.INIT_SEGMENT).append("\"\n");
+    for (int index = 0; index < segments.size(); index++) {
+      playlist.append(String.format(Locale.ROOT, "#EXTINF:%.6f,\n", segments.get(index).durationSeconds()))
+          .append(HlsService.segmentName(index)).append('\n');
+    }
+    return playlist.append("#EXT-X-ENDLIST\n").toString();
+  }
+
+  private void upload(String hlsPath, String fileName, byte[] data, String contentType) {
+    minioStorageService.uploadStream(new ByteArrayInputStream(data), data.length, contentType,
+        hlsPath + "/" + fileName);
+  }
+}
@@ -0,0 +1,78 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.enums.VideoFormat;
+import com.educationalplatform.streamingservice.service.Mp4BoxReader.Box;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Извлекает длительность MP4/MOV из заголовка {@code moov/mvhd} (см. {@link Mp4BoxReader}).
+ * Обычно длительность уже прочитана при регистрации видео; здесь она дочитывается, если тогда
+ * это не удалось. Размер чанка не меняется: клиенты уже могли запросить чанки по нему.
+ */
+@Slf4j
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class MetadataStage implements VideoProcessingStage {
+
+  private final Mp4BoxReader boxReader;
+
+  @Override
+  public String name() {
+    return "metadata";
+  }
+
+  @Override
+  public boolean isDone(Video video) {
+    boolean isoMedia = video.getFormat() == VideoFormat.MP4 || video.getFormat() == VideoFormat.MOV;
+    return !isoMedia || (video.getDurationSeconds() != null && video.getDurationSeconds() > 0);
+  }
+
+  @Override
+  public void process(Video video) throws IOException {
+    Integer durationSeconds = readDurationSeconds(video.getFilePath(), video.getFileSize());
+    if (durationSeconds == null) {
+      log.warn("Не удалось определить длительность видео {}: нет moov/mvhd", video.getId());
+      return;
+    }
+    video.setDurationSeconds(durationSeconds);
+  }
+
+  /**
+   * Длительность в секундах с округлением вверх или {@code null}, если в файле нет moov/mvhd.
+   */
+  Integer readDurationSeconds(String path, long fileSize) throws IOException {
+    Box moov = boxReader.findBox(path, 0, fileSize, "moov");
+    if (moov == null) {
+      return null;
+    }
+    Box mvhd = boxReader.findBox(path, moov.payloadOffset(), moov.end(), "mvhd");
+    if (mvhd == null) {
+      return null;
+    }
+
+    ByteBuffer payload = ByteBuffer.wrap(boxReader.read(path, mvhd.payloadOffset(),
+        (int) Math.min(32, mvhd.end() - mvhd.payloadOffset())));
+    int version = payload.get(0);
+    long timescale;
+    long duration;
+    if (version == 1) {
+      timescale = Integer.toUnsignedLong(payload.getInt(20));
+      duration = payload.getLong(24);
+    } else {
+      timescale = Integer.toUnsignedLong(payload.getInt(12));
+      duration = Integer.toUnsignedLong(payload.getInt(16));
+    }
+    if (timescale == 0 || duration <= 0) {
+      return null;
+    }
+    return (int) Math.min(Integer.MAX_VALUE, (duration + timescale - 1) / timescale);
+  }
+}
@@ -1,42 +1,28 @@
 package com.educationalplatform.streamingservice.service;
 
+import com.educationalplatform.service.StorageGateway;
 import com.educationalplatform.streamingservice.exception.ResourceNotFoundException;
-import io.minio.BucketExistsArgs;
-import io.minio.GetObjectArgs;
-import io.minio.MakeBucketArgs;
-import io.minio.MinioClient;
-import io.minio.PutObjectArgs;
-import io.minio.RemoveObjectArgs;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MinioStorageService {
 
-  private final MinioClient minioClient;
-
-  @Value("${minio.bucket-name}")
-  private String bucketName;
+  private final StorageGateway storageGateway;
+  private final VideoDiskCache diskCache;
 
   public String uploadVideo(MultipartFile file, String fileName) {
-    try {
-      createBucketIfNotExists();
-
-      minioClient.putObject(
-          PutObjectArgs.builder()
-              .bucket(bucketName)
-              .object(fileName)
-              .stream(file.getInputStream(), file.getSize(), -1)
-              .contentType(file.getContentType())
-              .build()
-      );
+    try (InputStream stream = file.getInputStream()) {
+      storageGateway.put(fileName, stream, file.getSize(), file.getContentType());
 
       log.info("Видео успешно загружено в MinIO: {}", fileName);
       return fileName;
@@ -46,28 +32,91 @@ public class MinioStorageService {
     }
   }
 
+  public String uploadStream(InputStream stream, long size, String contentType, String fileName) {
+    try {
+      storageGateway.put(fileName, stream, size, contentType);
+
+      log.info("Объект успешно загружен в MinIO: {}", fileName);
+      return fileName;
+    } catch (Exception e) {
+      log.error("Ошибка загрузки объекта в MinIO: {}", fileName, e);
+      throw new RuntimeException("Не удалось загрузить объект в MinIO", e);
+    }
+  }
+
+  public String getBucketName() {
+    return storageGateway.getBucketName();
+  }
+
   public InputStream getVideoInputStream(String fileName) {
+    InputStream cached = diskCache.open(fileName, 0, -1);
+    if (cached != null) {
+      return cached;
+    }
+    diskCache.populateAsync(fileName, () -> objectSize(fileName), () -> getObject(fileName));
+    return getObject(fileName);
+  }
+
+  public InputStream getVideoInputStream(String fileName, long offset, long length) {
+    InputStream cached = diskCache.open(fileName, offset, length);
+    if (cached != null) {
+      return cached;
+    }
+    diskCache.populateAsync(fileName, () -> objectSize(fileName), () -> getObject(fileName));
+    return getObjectRange(fileName, offset, length);
+  }
+
+  /**
+   * Читает диапазон видео, не занимая вызывающий поток на время запроса к MinIO. Попадание
+   * в дисковый кэш читается сразу: это локальный файл.
+   */
+  public CompletableFuture<byte[]> readVideoRangeAsync(String fileName, long offset, long length) {
+    InputStream cached = diskCache.open(fileName, offset, length);
+    if (cached != null) {
+      try (cached) {
+        return CompletableFuture.completedFuture(cached.readAllBytes());
+      } catch (IOException e) {
+        return CompletableFuture.failedFuture(new UncheckedIOException(e));
+      }
+    }
+    diskCache.populateAsync(fileName, () -> objectSize(fileName), () -> getObject(fileName));
+    return storageGateway.readAsync(fileName, offset, length)
+        .exceptionally(e -> {
+          log.error("Ошибка получения диапазона {}+{} видео из MinIO: {}", offset, length, fileName, e);
+          throw new ResourceNotFoundException("Видео не найдено в хранилище: " + fileName);
+        });
+  }
+
+  private InputStream getObject(String fileName) {
     try {
-      return minioClient.getObject(
-          GetObjectArgs.builder()
-              .bucket(bucketName)
-              .object(fileName)
-              .build()
-      );
+      return storageGateway.get(fileName);
     } catch (Exception e) {
       log.error("Ошибка получения видео из MinIO: {}", fileName, e);
       throw new ResourceNotFoundException("Видео не найдено в хранилище: " + fileName);
     }
   }
 
+  private long objectSize(String fileName) {
+    try {
+      return storageGateway.stat(fileName).size();
+    } catch (Exception e) {
+      throw new ResourceNotFoundException("Видео не найдено в хранилище: " + fileName);
+    }
+  }
+
+  private InputStream getObjectRange(String fileName, long offset, long length) {
+    try {
+      return storageGateway.get(fileName, offset, length);
+    } catch (Exception e) {
+      log.error("Ошибка получения диапазона {}+{} видео из MinIO: {}", offset, length, fileName, e);
+      throw new ResourceNotFoundException("Видео не найдено в хранилище: " + fileName);
+    }
+  }
+
   public void deleteVideo(String fileName) {
+    diskCache.evict(fileName);
     try {
-      minioClient.removeObject(
-          RemoveObjectArgs.builder()
-              .bucket(bucketName)
-              .object(fileName)
-              .build()
-      );
+      storageGateway.remove(fileName);
       log.info("Видео удалено из MinIO: {}", fileName);
     } catch (Exception e) {
       log.error("Ошибка удаления видео из MinIO: {}", fileName, e);
@@ -75,16 +124,7 @@ public class MinioStorageService {
     }
   }
 
-  private void createBucketIfNotExists() {
-    try {
-      boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
-      if (!found) {
-        minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
-        log.info("Создан бакет: {}", bucketName);
-      }
-    } catch (Exception e) {
-      log.error("Ошибка проверки/создания бакета: {}", bucketName, e);
-      throw new RuntimeException("Не удалось инициализировать бакет MinIO", e);
-    }
+  public void ensureBucket() {
+    storageGateway.ensureBucket();
   }
 }
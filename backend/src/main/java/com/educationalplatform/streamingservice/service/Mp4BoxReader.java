@@ -0,0 +1,73 @@
+package com.educationalplatform.streamingservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Поиск box'ов MP4/MOV в хранилище ranged-запросами: читаются только заголовки box'ов,
+ * поэтому {@code moov} в конце файла не требует скачивать файл целиком.
+ */
+@Component
+@RequiredArgsConstructor
+public class Mp4BoxReader {
+
+  private static final int MAX_BOXES = 1024;
+
+  private final MinioStorageService minioStorageService;
+
+  /**
+   * Положение содержимого box'а: [payloadOffset, end).
+   */
+  public record Box(long payloadOffset, long end) {
+
+    public long payloadSize() {
+      return end - payloadOffset;
+    }
+  }
+
+  /**
+   * Ищет box {@code type} среди соседних box'ов в диапазоне [from, end).
+   */
+  public Box findBox(String path, long from, long end, String type) throws IOException {
+    long offset = from;
+    for (int i = 0; i < MAX_BOXES && offset + 8 <= end; i++) {
+      byte[] header = read(path, offset, (int) Math.min(16, end - offset));
+      ByteBuffer buffer = ByteBuffer.wrap(header);
+      long size = Integer.toUnsignedLong(buffer.getInt(0));
+      String boxType = new String(header, 4, 4, StandardCharsets.US_ASCII);
+      int headerLength = 8;
+      if (size == 1) {
+        if (header.length < 16) {
+          return null;
+        }
+        size = buffer.getLong(8);
+        headerLength = 16;
+      } else if (size == 0) {
+        size = end - offset;
+      }
+      if (size < headerLength) {
+        return null;
+      }
+      if (boxType.equals(type)) {
+        return new Box(offset + headerLength, Math.min(end, offset + size));
+      }
+      offset += size;
+    }
+    return null;
+  }
+
+  public byte[] read(String path, long offset, int length) throws IOException {
+    try (InputStream in = minioStorageService.getVideoInputStream(path, offset, length)) {
+      byte[] data = in.readNBytes(length);
+      if (data.length < length) {
+        throw new IOException("Неожиданный конец файла " + path + " на смещении " + offset);
+      }
+      return data;
+    }
+  }
+}
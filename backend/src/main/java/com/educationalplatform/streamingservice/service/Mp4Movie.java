@@ -0,0 +1,379 @@
+package com.educationalplatform.streamingservice.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Разобранный {@code moov} несегментированного MP4/MOV: таблицы сэмплов дорожек видео и звука
+ * и исходные box'ы, из которых собирается init-сегмент fMP4 (см. {@link Fmp4Writer}).
+ * Остальные дорожки (субтитры, hint, timecode) пропускаются.
+ */
+public final class Mp4Movie {
+
+  private static final int MAX_SAMPLES = 10_000_000;
+
+  /**
+   * Контейнер не поддерживается упаковщиком: фрагментированный файл, несколько описаний
+   * сэмплов в дорожке, повреждённые таблицы и т.п.
+   */
+  public static final class UnsupportedFormatException extends Exception {
+
+    public UnsupportedFormatException(String message) {
+      super(message);
+    }
+  }
+
+  public static final class Track {
+
+    final int trackId;
+    final String handler;
+    final long timescale;
+    final byte[] tkhd;
+    final byte[] edts;
+    final byte[] mdhd;
+    final byte[] hdlr;
+    final List<byte[]> mediaHeaders;
+    final byte[] stsd;
+
+    final long[] offsets;
+    final int[] sizes;
+    final int[] durations;
+    final int[] compositionOffsets;
+    final boolean[] sync;
+    /**
+     * Время декодирования каждого сэмпла; последний элемент — длительность дорожки.
+     */
+    final long[] decodeTimes;
+
+    private Track(int trackId, String handler, long timescale, byte[] tkhd, byte[] edts, byte[] mdhd, byte[] hdlr,
+        List<byte[]> mediaHeaders, byte[] stsd, long[] offsets, int[] sizes, int[] durations,
+        int[] compositionOffsets, boolean[] sync) {
+      this.trackId = trackId;
+      this.handler = handler;
+      this.timescale = timescale;
+      this.tkhd = tkhd;
+      this.edts = edts;
+      this.mdhd = mdhd;
+      this.hdlr = hdlr;
+      this.mediaHeaders = mediaHeaders;
+      this.stsd = stsd;
+      this.offsets = offsets;
+      this.sizes = sizes;
+      this.durations = durations;
+      this.compositionOffsets = compositionOffsets;
+      this.sync = sync;
+      this.decodeTimes = new long[sizes.length + 1];
+      for (int i = 0; i < durations.length; i++) {
+        decodeTimes[i + 1] = decodeTimes[i] + Integer.toUnsignedLong(durations[i]);
+      }
+    }
+
+    public boolean isVideo() {
+      return "vide".equals(handler);
+    }
+
+    public int sampleCount() {
+      return sizes.length;
+    }
+  }
+
+  private record Atom(String type, ByteBuffer box, ByteBuffer payload) {
+
+    byte[] bytes() {
+      byte[] data = new byte[box.remaining()];
+      box.duplicate().get(data);
+      return data;
+    }
+  }
+
+  final byte[] mvhd;
+  final List<Track> tracks;
+
+  private Mp4Movie(byte[] mvhd, List<Track> tracks) {
+    this.mvhd = mvhd;
+    this.tracks = tracks;
+  }
+
+  /**
+   * Дорожка, по ключевым кадрам которой режутся сегменты: первая видеодорожка, а если её
+   * нет — первая дорожка.
+   */
+  public Track referenceTrack() {
+    for (Track track : tracks) {
+      if (track.isVideo()) {
+        return track;
+      }
+    }
+    return tracks.get(0);
+  }
+
+  /**
+   * Разбирает содержимое box'а {@code moov} (без его заголовка).
+   */
+  public static Mp4Movie parse(byte[] moovPayload) throws UnsupportedFormatException {
+    try {
+      return parseMovie(moovPayload);
+    } catch (IndexOutOfBoundsException e) {
+      throw new UnsupportedFormatException("обрезанный box");
+    }
+  }
+
+  private static Mp4Movie parseMovie(byte[] moovPayload) throws UnsupportedFormatException {
+    Atom mvhd = null;
+    List<Track> tracks = new ArrayList<>();
+    for (Atom atom : children(ByteBuffer.wrap(moovPayload))) {
+      switch (atom.type()) {
+        case "mvhd" -> mvhd = atom;
+        case "mvex" -> throw new UnsupportedFormatException("файл уже фрагментирован");
+        case "trak" -> {
+          Track track = parseTrack(atom.payload());
+          if (track != null) {
+            tracks.add(track);
+          }
+        }
+        default -> {
+        }
+      }
+    }
+    if (mvhd == null) {
+      throw new UnsupportedFormatException("нет moov/mvhd");
+    }
+    if (tracks.isEmpty()) {
+      throw new UnsupportedFormatException("нет дорожек видео или звука");
+    }
+    return new Mp4Movie(mvhd.bytes(), tracks);
+  }
+
+  private static Track parseTrack(ByteBuffer trak) throws UnsupportedFormatException {
+    Atom tkhd = require(trak, "tkhd");
+    Atom edts = find(trak, "edts");
+    Atom mdia = require(trak, "mdia");
+    Atom mdhd = require(mdia.payload(), "mdhd");
+    Atom hdlr = require(mdia.payload(), "hdlr");
+    Atom minf = require(mdia.payload(), "minf");
+
+    String handler = ascii(hdlr.payload(), 8);
+    if (!"vide".equals(handler) && !"soun".equals(handler)) {
+      return null;
+    }
+    int trackId = tkhd.payload().getInt(tkhd.payload().get(0) == 1 ? 20 : 12);
+    long timescale = Integer.toUnsignedLong(mdhd.payload().getInt(mdhd.payload().get(0) == 1 ? 20 : 12));
+    if (timescale == 0) {
+      throw new UnsupportedFormatException("нулевой timescale дорожки " + trackId);
+    }
+
+    Atom stbl = null;
+    List<byte[]> mediaHeaders = new ArrayList<>();
+    for (Atom atom : children(minf.payload())) {
+      if ("stbl".equals(atom.type())) {
+        stbl = atom;
+      } else {
+        mediaHeaders.add(atom.bytes());
+      }
+    }
+    if (stbl == null) {
+      throw new UnsupportedFormatException("нет stbl в дорожке " + trackId);
+    }
+
+    ByteBuffer tables = stbl.payload();
+    Atom stsd = require(tables, "stsd");
+    if (stsd.payload().getInt(4) != 1) {
+      throw new UnsupportedFormatException("несколько описаний сэмплов в дорожке " + trackId);
+    }
+
+    int[] sizes = readSizes(require(tables, "stsz").payload());
+    int[] durations = readDurations(require(tables, "stts").payload(), sizes.length);
+    Atom ctts = find(tables, "ctts");
+    int[] compositionOffsets = ctts != null
+        ? readCompositionOffsets(ctts.payload(), sizes.length)
+        : new int[sizes.length];
+    Atom stss = find(tables, "stss");
+    boolean[] sync = readSync(stss != null ? stss.payload() : null, sizes.length);
+
+    Atom stco = find(tables, "stco");
+    Atom co64 = find(tables, "co64");
+    if (stco == null && co64 == null) {
+      throw new UnsupportedFormatException("нет stco/co64 в дорожке " + trackId);
+    }
+    long[] chunkOffsets = stco != null ? readChunkOffsets(stco.payload(), 4) : readChunkOffsets(co64.payload(), 8);
+    long[] offsets = readSampleOffsets(require(tables, "stsc").payload(), chunkOffsets, sizes);
+
+    return new Track(trackId, handler, timescale, tkhd.bytes(), edts != null ? edts.bytes() : null, mdhd.bytes(),
+        hdlr.bytes(), mediaHeaders, stsd.bytes(), offsets, sizes, durations, compositionOffsets, sync);
+  }
+
+  private static int[] readSizes(ByteBuffer stsz) throws UnsupportedFormatException {
+    int sampleSize = stsz.getInt(4);
+    int count = count(stsz, 8, sampleSize == 0 ? 4 : 0);
+    if (count == 0 || count > MAX_SAMPLES) {
+      throw new UnsupportedFormatException("недопустимое число сэмплов: " + Integer.toUnsignedString(count));
+    }
+    int[] sizes = new int[count];
+    for (int i = 0; i < count; i++) {
+      sizes[i] = sampleSize != 0 ? sampleSize : stsz.getInt(12 + 4 * i);
+      if (sizes[i] < 0) {
+        throw new UnsupportedFormatException("слишком большой сэмпл");
+      }
+    }
+    return sizes;
+  }
+
+  private static int[] readDurations(ByteBuffer stts, int sampleCount) throws UnsupportedFormatException {
+    int entries = count(stts, 4, 8);
+    int[] durations = new int[sampleCount];
+    int sample = 0;
+    for (int e = 0; e < entries && sample < sampleCount; e++) {
+      long run = Integer.toUnsignedLong(stts.getInt(8 + 8 * e));
+      int delta = stts.getInt(12 + 8 * e);
+      for (long k = 0; k < run && sample < sampleCount; k++) {
+        durations[sample++] = delta;
+      }
+    }
+    if (sample < sampleCount) {
+      throw new UnsupportedFormatException("stts описывает не все сэмплы");
+    }
+    return durations;
+  }
+
+  private static int[] readCompositionOffsets(ByteBuffer ctts, int sampleCount) throws UnsupportedFormatException {
+    int entries = count(ctts, 4, 8);
+    int[] offsets = new int[sampleCount];
+    int sample = 0;
+    for (int e = 0; e < entries && sample < sampleCount; e++) {
+      long run = Integer.toUnsignedLong(ctts.getInt(8 + 8 * e));
+      int offset = ctts.getInt(12 + 8 * e);
+      for (long k = 0; k < run && sample < sampleCount; k++) {
+        offsets[sample++] = offset;
+      }
+    }
+    return offsets;
+  }
+
+  private static boolean[] readSync(ByteBuffer stss, int sampleCount) throws UnsupportedFormatException {
+    boolean[] sync = new boolean[sampleCount];
+    if (stss == null) {
+      // Без stss все сэмплы ключевые (звук, intra-only видео)
+      Arrays.fill(sync, true);
+      return sync;
+    }
+    int entries = count(stss, 4, 4);
+    for (int e = 0; e < entries; e++) {
+      long number = Integer.toUnsignedLong(stss.getInt(8 + 4 * e));
+      if (number >= 1 && number <= sampleCount) {
+        sync[(int) number - 1] = true;
+      }
+    }
+    sync[0] = true;
+    return sync;
+  }
+
+  private static long[] readChunkOffsets(ByteBuffer table, int width) throws UnsupportedFormatException {
+    int entries = count(table, 4, width);
+    long[] offsets = new long[entries];
+    for (int i = 0; i < entries; i++) {
+      offsets[i] = width == 8 ? table.getLong(8 + 8 * i) : Integer.toUnsignedLong(table.getInt(8 + 4 * i));
+    }
+    return offsets;
+  }
+
+  /**
+   * Раскладывает сэмплы по чанкам по таблице stsc: сэмплы чанка лежат в файле подряд,
+   * начиная со смещения чанка.
+   */
+  private static long[] readSampleOffsets(ByteBuffer stsc, long[] chunkOffsets, int[] sizes)
+      throws UnsupportedFormatException {
+    int entries = count(stsc, 4, 12);
+    long[] offsets = new long[sizes.length];
+    int sample = 0;
+    for (int e = 0; e < entries && sample < sizes.length; e++) {
+      long firstChunk = Integer.toUnsignedLong(stsc.getInt(8 + 12 * e));
+      long nextFirstChunk = e + 1 < entries
+          ? Integer.toUnsignedLong(stsc.getInt(8 + 12 * (e + 1)))
+          : chunkOffsets.length + 1L;
+      long samplesPerChunk = Integer.toUnsignedLong(stsc.getInt(12 + 12 * e));
+      for (long chunk = firstChunk; chunk < nextFirstChunk && sample < sizes.length; chunk++) {
+        if (chunk < 1 || chunk > chunkOffsets.length) {
+          throw new UnsupportedFormatException("stsc ссылается на несуществующий чанк " + chunk);
+        }
+        long offset = chunkOffsets[(int) chunk - 1];
+        for (long k = 0; k < samplesPerChunk && sample < sizes.length; k++) {
+          offsets[sample] = offset;
+          offset += sizes[sample];
+          sample++;
+        }
+      }
+    }
+    if (sample < sizes.length) {
+      throw new UnsupportedFormatException("stsc описывает не все сэмплы");
+    }
+    return offsets;
+  }
+
+  /**
+   * Число записей таблицы по смещению {@code countOffset}, если все они помещаются в box.
+   */
+  private static int count(ByteBuffer table, int countOffset, int entrySize) throws UnsupportedFormatException {
+    if (table.remaining() < countOffset + 4) {
+      throw new UnsupportedFormatException("обрезанная таблица сэмплов");
+    }
+    long count = Integer.toUnsignedLong(table.getInt(countOffset));
+    if (entrySize > 0 && count * entrySize > table.remaining() - countOffset - 4) {
+      throw new UnsupportedFormatException("обрезанная таблица сэмплов");
+    }
+    return (int) Math.min(count, Integer.MAX_VALUE);
+  }
+
+  private static List<Atom> children(ByteBuffer parent) throws UnsupportedFormatException {
+    List<Atom> atoms = new ArrayList<>();
+    int offset = 0;
+    int end = parent.remaining();
+    while (offset + 8 <= end) {
+      long size = Integer.toUnsignedLong(parent.getInt(offset));
+      int headerLength = 8;
+      if (size == 1) {
+        if (offset + 16 > end) {
+          break;
+        }
+        size = parent.getLong(offset + 8);
+        headerLength = 16;
+      } else if (size == 0) {
+        size = end - offset;
+      }
+      if (size < headerLength || size > end - offset) {
+        throw new UnsupportedFormatException("повреждённый box на смещении " + offset);
+      }
+      String type = ascii(parent, offset + 4);
+      ByteBuffer box = parent.slice(offset, (int) size);
+      ByteBuffer payload = parent.slice(offset + headerLength, (int) size - headerLength);
+      atoms.add(new Atom(type, box, payload));
+      offset += (int) size;
+    }
+    return atoms;
+  }
+
+  private static Atom find(ByteBuffer parent, String type) throws UnsupportedFormatException {
+    for (Atom atom : children(parent)) {
+      if (atom.type().equals(type)) {
+        return atom;
+      }
+    }
+    return null;
+  }
+
+  private static Atom require(ByteBuffer parent, String type) throws UnsupportedFormatException {
+    Atom atom = find(parent, type);
+    if (atom == null) {
+      throw new UnsupportedFormatException("нет box'а " + type);
+    }
+    return atom;
+  }
+
+  private static String ascii(ByteBuffer buffer, int offset) {
+    byte[] type = new byte[4];
+    buffer.get(offset, type);
+    return new String(type, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,57 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.enums.StorageLayout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Шифрует видео сегментами (см. {@link VideoSegmentService}). До завершения шага видео
+ * отдаётся в схеме PLAIN с шифрованием на лету.
+ */
+@Component
+@Order(3)
+public class SegmentStage implements VideoProcessingStage {
+
+  private final MinioStorageService minioStorageService;
+  private final VideoSegmentService videoSegmentService;
+  private final VideoEncryptionService encryptionService;
+  private final boolean preEncrypt;
+
+  public SegmentStage(
+      MinioStorageService minioStorageService,
+      VideoSegmentService videoSegmentService,
+      VideoEncryptionService encryptionService,
+      @Value("${video.ingest.pre-encrypt:true}") boolean preEncrypt) {
+    this.minioStorageService = minioStorageService;
+    this.videoSegmentService = videoSegmentService;
+    this.encryptionService = encryptionService;
+    this.preEncrypt = preEncrypt;
+  }
+
+  @Override
+  public String name() {
+    return "segments";
+  }
+
+  @Override
+  public boolean isDone(Video video) {
+    return !preEncrypt || video.getStorageLayout() == StorageLayout.ENCRYPTED_SEGMENTS;
+  }
+
+  @Override
+  public void process(Video video) throws IOException {
+    String segmentsPath = videoSegmentService.segmentsPathFor(video.getFilePath());
+    try (InputStream plain = minioStorageService.getVideoInputStream(video.getFilePath())) {
+      videoSegmentService.writeSegments(plain, video.getFileSize(), video.getChunkSize(), video.getEncryptionKey(),
+          segmentsPath);
+    }
+    video.setSegmentsPath(segmentsPath);
+    video.setEncryptionMode(encryptionService.getMode());
+    video.setStorageLayout(StorageLayout.ENCRYPTED_SEGMENTS);
+  }
+}
@@ -0,0 +1,269 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.configuration.MinioMultipartClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Потоковая загрузка в MinIO без промежуточного файла: тело запроса читается частями
+ * фиксированного размера, и части отправляются multipart-загрузкой параллельно.
+ * Буферы частей берутся из общего пула, поэтому память ограничена
+ * {@code max-buffers * part-size} на все загрузки сразу и {@code parallel-parts * part-size}
+ * на одну загрузку; когда буферов нет, чтение тела запроса приостанавливается.
+ * Объект больше {@code video.upload.max-bytes} не загружается: чтение прекращается на
+ * первой части сверх лимита, и multipart-загрузка отменяется.
+ */
+@Slf4j
+@Service
+public class StreamingUploadService {
+
+  private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+  private static final int MAX_PARTS = 10_000;
+
+  private final MinioMultipartClient multipartClient;
+  private final MinioStorageService minioStorageService;
+  private final int partSize;
+  private final int partsPerUpload;
+  private final long maxUploadBytes;
+  private final Semaphore bufferPermits;
+  private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+
+  private final Counter uploadedParts;
+  private final Counter uploadedBytes;
+  private final Counter failedUploads;
+
+  public StreamingUploadService(
+      MinioMultipartClient multipartClient,
+      MinioStorageService minioStorageService,
+      MeterRegistry meterRegistry,
+      @Value("${video.upload.part-size:16777216}") int partSize,
+      @Value("${video.upload.parallel-parts:4}") int partsPerUpload,
+      @Value("${video.upload.max-buffers:16}") int maxBuffers,
+      @Value("${video.upload.max-bytes:10737418240}") long maxUploadBytes) {
+    this.multipartClient = multipartClient;
+    this.minioStorageService = minioStorageService;
+    this.partSize = Math.max(MIN_PART_SIZE, partSize);
+    this.partsPerUpload = Math.max(1, partsPerUpload);
+    this.maxUploadBytes = Math.min(maxUploadBytes, (long) MAX_PARTS * this.partSize);
+    this.bufferPermits = new Semaphore(Math.max(this.partsPerUpload, maxBuffers), true);
+
+    this.uploadedParts = Counter.builder("video.upload.parts").register(meterRegistry);
+    this.uploadedBytes = Counter.builder("video.upload.bytes").register(meterRegistry);
+    this.failedUploads = Counter.builder("video.upload.failures").register(meterRegistry);
+    int totalBuffers = bufferPermits.availablePermits();
+    Gauge.builder("video.upload.buffers.in-use", bufferPermits, permits -> totalBuffers - permits.availablePermits())
+        .register(meterRegistry);
+  }
+
+  /**
+   * Загружает поток неизвестной длины в объект {@code objectName} и возвращает число
+   * записанных байт. Поток не закрывается.
+   */
+  public long upload(InputStream source, String objectName, String contentType) {
+    MultipartUpload upload = new MultipartUpload(objectName, contentType);
+    try {
+      long size = upload.transfer(source);
+      log.info("Объект загружен в MinIO потоком: {}, {} байт, частей={}", objectName, size, upload.parts.size());
+      return size;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      upload.abort();
+      throw new RuntimeException("Загрузка объекта в MinIO прервана", e);
+    } catch (IllegalArgumentException e) {
+      upload.abort();
+      throw e;
+    } catch (Exception e) {
+      upload.abort();
+      log.error("Ошибка потоковой загрузки объекта в MinIO: {}", objectName, e);
+      throw new RuntimeException("Не удалось загрузить объект в MinIO", e);
+    }
+  }
+
+  public int getPartSize() {
+    return partSize;
+  }
+
+  public long getMaxUploadBytes() {
+    return maxUploadBytes;
+  }
+
+  /**
+   * Загружает одну часть уже начатой multipart-загрузки. Часть должна содержать ровно
+   * {@code expectedLength} байт; буфер берётся из общего пула.
+   */
+  public Part uploadPart(String objectName, String uploadId, int partNumber, InputStream source, int expectedLength) {
+    byte[] buffer = null;
+    boolean pooled = expectedLength <= partSize;
+    try {
+      buffer = pooled ? takeBuffer() : new byte[expectedLength];
+      int length = source.readNBytes(buffer, 0, expectedLength);
+      if (length != expectedLength || source.read() != -1) {
+        throw new IllegalArgumentException("Часть " + partNumber + " должна содержать ровно "
+            + expectedLength + " байт");
+      }
+      Part part = multipartClient.uploadPart(minioStorageService.getBucketName(), objectName, uploadId, partNumber,
+          buffer, length).get();
+      uploadedParts.increment();
+      uploadedBytes.increment(length);
+      return part;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Загрузка части в MinIO прервана", e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (ExecutionException e) {
+      log.error("Ошибка загрузки части {} объекта {} в MinIO", partNumber, objectName, e.getCause());
+      throw new RuntimeException("Не удалось загрузить часть в MinIO", e.getCause());
+    } finally {
+      if (pooled && buffer != null) {
+        returnBuffer(buffer);
+      }
+    }
+  }
+
+  private byte[] takeBuffer() throws InterruptedException {
+    bufferPermits.acquire();
+    byte[] buffer = freeBuffers.poll();
+    return buffer != null ? buffer : new byte[partSize];
+  }
+
+  private void returnBuffer(byte[] buffer) {
+    freeBuffers.offer(buffer);
+    bufferPermits.release();
+  }
+
+  private final class MultipartUpload {
+
+    private final String objectName;
+    private final String contentType;
+    private final Semaphore inFlight = new Semaphore(partsPerUpload);
+    private final List<CompletableFuture<Part>> parts = new ArrayList<>();
+    private String uploadId;
+
+    private MultipartUpload(String objectName, String contentType) {
+      this.objectName = objectName;
+      this.contentType = contentType;
+    }
+
+    private long transfer(InputStream source) throws Exception {
+      long total = 0;
+      for (int partNumber = 1; ; partNumber++) {
+        inFlight.acquire();
+        byte[] buffer;
+        try {
+          buffer = takeBuffer();
+        } catch (InterruptedException e) {
+          inFlight.release();
+          throw e;
+        }
+        int length;
+        try {
+          length = source.readNBytes(buffer, 0, partSize);
+        } catch (IOException e) {
+          release(buffer);
+          throw e;
+        }
+        if (total + length > maxUploadBytes) {
+          release(buffer);
+          throw new IllegalArgumentException("Файл слишком большой: не более " + maxUploadBytes + " байт");
+        }
+
+        if (uploadId == null && length < partSize) {
+          // Объект меньше одной части: multipart-загрузка не нужна.
+          try {
+            minioStorageService.uploadStream(new ByteArrayInputStream(buffer, 0, length), length, contentType,
+                objectName);
+          } finally {
+            release(buffer);
+          }
+          uploadedBytes.increment(length);
+          return length;
+        }
+        if (length == 0) {
+          release(buffer);
+          break;
+        }
+        failFast();
+        if (uploadId == null) {
+          try {
+            minioStorageService.ensureBucket();
+            uploadId = multipartClient.startUpload(bucket(), objectName, contentType).get();
+          } catch (Exception e) {
+            release(buffer);
+            throw e;
+          }
+        }
+
+        int partLength = length;
+        parts.add(multipartClient.uploadPart(bucket(), objectName, uploadId, partNumber, buffer, partLength)
+            .whenComplete((part, error) -> {
+              release(buffer);
+              if (error == null) {
+                uploadedParts.increment();
+                uploadedBytes.increment(partLength);
+              }
+            }));
+        total += length;
+        if (length < partSize) {
+          break;
+        }
+      }
+
+      Part[] completed = new Part[parts.size()];
+      for (int i = 0; i < completed.length; i++) {
+        completed[i] = parts.get(i).get();
+      }
+      multipartClient.completeUpload(bucket(), objectName, uploadId, completed).get();
+      return total;
+    }
+
+    /**
+     * Прекращает чтение тела запроса, как только одна из уже отправленных частей не загрузилась.
+     */
+    private void failFast() throws ExecutionException, InterruptedException {
+      for (CompletableFuture<Part> part : parts) {
+        if (part.isCompletedExceptionally()) {
+          part.get();
+        }
+      }
+    }
+
+    private void release(byte[] buffer) {
+      returnBuffer(buffer);
+      inFlight.release();
+    }
+
+    private void abort() {
+      failedUploads.increment();
+      if (uploadId == null) {
+        return;
+      }
+      multipartClient.abortUpload(bucket(), objectName, uploadId).whenComplete((ignored, error) -> {
+        if (error != null) {
+          log.warn("Не удалось отменить multipart-загрузку {} ({}): {}", objectName, uploadId, error.getMessage());
+        }
+      });
+    }
+
+    private String bucket() {
+      return minioStorageService.getBucketName();
+    }
+  }
+}
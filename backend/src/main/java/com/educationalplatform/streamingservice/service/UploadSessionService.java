@@ -0,0 +1,319 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.configuration.MinioMultipartClient;
+import com.educationalplatform.streamingservice.entity.UploadSession;
+import com.educationalplatform.streamingservice.exception.ConflictException;
+import com.educationalplatform.streamingservice.exception.ResourceNotFoundException;
+import com.educationalplatform.streamingservice.model.dto.CreateUploadSessionRequest;
+import com.educationalplatform.streamingservice.model.dto.UploadSessionDTO;
+import com.educationalplatform.streamingservice.model.dto.VideoDTO;
+import com.educationalplatform.streamingservice.model.enums.UploadSessionStatus;
+import com.educationalplatform.streamingservice.repository.UploadSessionRepository;
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Возобновляемая загрузка видео. Сессия соответствует multipart-загрузке в MinIO: клиент
+ * отправляет пронумерованные части в любом порядке и параллельно, после обрыва узнаёт, каких
+ * частей не хватает, и досылает только их. Список полученных частей берётся из MinIO, в БД
+ * хранятся только параметры сессии. Брошенные сессии отменяются по истечении {@code ttl}.
+ */
+@Slf4j
+@Service
+public class UploadSessionService {
+
+  private final UploadSessionRepository uploadSessionRepository;
+  private final MinioMultipartClient multipartClient;
+  private final MinioStorageService minioStorageService;
+  private final StreamingUploadService streamingUploadService;
+  private final VideoService videoService;
+  private final long ttlMinutes;
+
+  public UploadSessionService(
+      UploadSessionRepository uploadSessionRepository,
+      MinioMultipartClient multipartClient,
+      MinioStorageService minioStorageService,
+      StreamingUploadService streamingUploadService,
+      VideoService videoService,
+      @Value("${video.upload-session.ttl-minutes:1440}") long ttlMinutes) {
+    this.uploadSessionRepository = uploadSessionRepository;
+    this.multipartClient = multipartClient;
+    this.minioStorageService = minioStorageService;
+    this.streamingUploadService = streamingUploadService;
+    this.videoService = videoService;
+    this.ttlMinutes = ttlMinutes;
+  }
+
+  public UploadSessionDTO createSession(CreateUploadSessionRequest request, String ownerId) {
+    if (request.getFileSize() > streamingUploadService.getMaxUploadBytes()) {
+      throw new IllegalArgumentException("Файл слишком большой: не более "
+          + streamingUploadService.getMaxUploadBytes() + " байт");
+    }
+    int partSize = streamingUploadService.getPartSize();
+    long totalParts = (request.getFileSize() + partSize - 1) / partSize;
+
+    String contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE.equals(request.getContentType())
+        ? null
+        : request.getContentType();
+    String objectName = VideoService.newObjectName(request.getFileName());
+    minioStorageService.ensureBucket();
+    String uploadId = await(multipartClient.startUpload(minioStorageService.getBucketName(), objectName, contentType));
+
+    UploadSession session = UploadSession.builder()
+        .id(UUID.randomUUID())
+        .ownerId(ownerId)
+        .objectName(objectName)
+        .uploadId(uploadId)
+        .title(request.getTitle())
+        .description(request.getDescription())
+        .contentType(contentType)
+        .fileSize(request.getFileSize())
+        .partSize(partSize)
+        .totalParts((int) totalParts)
+        .expiresAt(nextExpiry())
+        .build();
+    session = uploadSessionRepository.save(session);
+    log.info("Создана сессия загрузки {}: {} байт, частей={}", session.getId(), session.getFileSize(), totalParts);
+
+    return toDTO(session, List.of());
+  }
+
+  public UploadSessionDTO getSession(UUID sessionId, String ownerId) {
+    UploadSession session = findSession(sessionId, ownerId);
+    if (isAssembled(session)) {
+      return toDTO(session, List.of());
+    }
+    return toDTO(session, listParts(session));
+  }
+
+  /**
+   * Принимает часть {@code partNumber}. Повторная отправка той же части заменяет предыдущую,
+   * поэтому части можно безопасно досылать после обрыва.
+   */
+  public String uploadPart(UUID sessionId, int partNumber, InputStream body, String ownerId) {
+    UploadSession session = findSession(sessionId, ownerId);
+    requireActive(session);
+    if (partNumber < 1 || partNumber > session.getTotalParts()) {
+      throw new IllegalArgumentException("Номер части должен быть от 1 до " + session.getTotalParts());
+    }
+
+    Part part = streamingUploadService.uploadPart(session.getObjectName(), session.getUploadId(), partNumber, body,
+        session.expectedPartLength(partNumber));
+    uploadSessionRepository.extend(sessionId, UploadSessionStatus.ACTIVE, nextExpiry());
+    return part.etag();
+  }
+
+  /**
+   * Собирает объект из частей и регистрирует видео. Если объект уже собран, а регистрация
+   * не удалась (статус {@code ASSEMBLED}), повторный вызов только регистрирует видео.
+   */
+  public VideoDTO completeSession(UUID sessionId, String ownerId) {
+    UploadSession session = findSession(sessionId, ownerId);
+    if (session.getStatus() == UploadSessionStatus.COMPLETED) {
+      return videoService.getVideo(session.getVideoId());
+    }
+    if (session.getStatus() != UploadSessionStatus.ASSEMBLED) {
+      assemble(session);
+    }
+    return register(session);
+  }
+
+  private void assemble(UploadSession session) {
+    UUID sessionId = session.getId();
+    if (uploadSessionRepository.transition(sessionId, UploadSessionStatus.ACTIVE, UploadSessionStatus.COMPLETING,
+        nextExpiry()) == 0) {
+      throw new ConflictException("Сессия загрузки " + sessionId + " уже завершается");
+    }
+
+    try {
+      Map<Integer, Part> received = receivedParts(session, listParts(session));
+      List<Integer> missing = missingParts(session, received);
+      if (!missing.isEmpty()) {
+        throw new ConflictException("Не получены части: " + missing);
+      }
+      await(multipartClient.completeUpload(minioStorageService.getBucketName(), session.getObjectName(),
+          session.getUploadId(), received.values().toArray(new Part[0])));
+    } catch (RuntimeException e) {
+      uploadSessionRepository.transition(sessionId, UploadSessionStatus.COMPLETING, UploadSessionStatus.ACTIVE,
+          nextExpiry());
+      throw e;
+    }
+    uploadSessionRepository.transition(sessionId, UploadSessionStatus.COMPLETING, UploadSessionStatus.ASSEMBLED,
+        nextExpiry());
+  }
+
+  /**
+   * Регистрирует видео для собранного объекта. Повтор после сбоя безопасен: видео ищется
+   * по имени объекта, которое уникально.
+   */
+  private VideoDTO register(UploadSession session) {
+    VideoDTO video = videoService.registerUploadedVideo(session.getObjectName(), session.getFileSize(),
+        session.getContentType(), session.getTitle(), session.getDescription());
+    uploadSessionRepository.markCompleted(session.getId(), UploadSessionStatus.COMPLETED, video.getId(),
+        nextExpiry());
+    log.info("Сессия загрузки {} завершена: видео id={}, частей={}", session.getId(), video.getId(),
+        session.getTotalParts());
+    return video;
+  }
+
+  public void abortSession(UUID sessionId, String ownerId) {
+    UploadSession session = findSession(sessionId, ownerId);
+    requireActive(session);
+    discard(session);
+  }
+
+  /**
+   * Отменяет в MinIO и удаляет сессии, по которым давно не было активности. Завершённые
+   * сессии хранятся столько же, чтобы повторный запрос complete вернул то же видео.
+   * Собранные, но не зарегистрированные объекты регистрируются, а не удаляются. Сессия,
+   * которую не удалось обработать, откладывается на следующий срок и не мешает остальным.
+   */
+  @Scheduled(fixedDelayString = "${video.upload-session.cleanup-interval-ms:600000}")
+  public void purgeExpiredSessions() {
+    Set<UUID> failed = new HashSet<>();
+    boolean progress;
+    do {
+      progress = false;
+      for (UploadSession session : uploadSessionRepository.findTop100ByExpiresAtBefore(LocalDateTime.now())) {
+        if (failed.contains(session.getId())) {
+          continue;
+        }
+        try {
+          if (session.getStatus() == UploadSessionStatus.COMPLETED) {
+            uploadSessionRepository.delete(session);
+          } else if (session.getStatus() == UploadSessionStatus.ASSEMBLED) {
+            register(session);
+          } else {
+            discard(session);
+            log.info("Брошенная сессия загрузки {} отменена", session.getId());
+          }
+          progress = true;
+        } catch (RuntimeException e) {
+          log.warn("Не удалось удалить сессию загрузки {}, повтор через {} мин: {}", session.getId(), ttlMinutes,
+              e.getMessage());
+          failed.add(session.getId());
+          postpone(session);
+        }
+      }
+    } while (progress);
+  }
+
+  private void postpone(UploadSession session) {
+    try {
+      uploadSessionRepository.extend(session.getId(), session.getStatus(), nextExpiry());
+    } catch (RuntimeException e) {
+      log.warn("Не удалось отложить сессию загрузки {}: {}", session.getId(), e.getMessage());
+    }
+  }
+
+  private void discard(UploadSession session) {
+    try {
+      await(multipartClient.abortUpload(minioStorageService.getBucketName(), session.getObjectName(),
+          session.getUploadId()));
+    } catch (RuntimeException e) {
+      // Загрузка могла быть уже отменена или удалена политикой жизненного цикла бакета.
+      log.warn("Не удалось отменить multipart-загрузку {}: {}", session.getUploadId(), e.getMessage());
+    }
+    if (session.getStatus() == UploadSessionStatus.COMPLETING) {
+      // Сборка могла успеть завершиться: видео на этот объект ещё не ссылается
+      minioStorageService.deleteVideo(session.getObjectName());
+    }
+    uploadSessionRepository.delete(session);
+  }
+
+  private List<Part> listParts(UploadSession session) {
+    return await(multipartClient.listUploadedParts(minioStorageService.getBucketName(), session.getObjectName(),
+        session.getUploadId()));
+  }
+
+  /**
+   * Полученные части по номерам; части неверного размера (например, оборванные на середине)
+   * считаются недополученными.
+   */
+  private static Map<Integer, Part> receivedParts(UploadSession session, List<Part> parts) {
+    Map<Integer, Part> received = new TreeMap<>();
+    for (Part part : parts) {
+      int number = part.partNumber();
+      if (number <= session.getTotalParts() && part.partSize() == session.expectedPartLength(number)) {
+        received.put(number, part);
+      }
+    }
+    return received;
+  }
+
+  private static List<Integer> missingParts(UploadSession session, Map<Integer, Part> received) {
+    List<Integer> missing = new ArrayList<>();
+    for (int number = 1; number <= session.getTotalParts(); number++) {
+      if (!received.containsKey(number)) {
+        missing.add(number);
+      }
+    }
+    return missing;
+  }
+
+  private UploadSessionDTO toDTO(UploadSession session, List<Part> parts) {
+    Map<Integer, Part> received = receivedParts(session, parts);
+    return UploadSessionDTO.builder()
+        .id(session.getId())
+        .status(session.getStatus())
+        .fileSize(session.getFileSize())
+        .partSize(session.getPartSize())
+        .totalParts(session.getTotalParts())
+        .receivedParts(new ArrayList<>(received.keySet()))
+        .missingParts(isAssembled(session) ? List.of() : missingParts(session, received))
+        .videoId(session.getVideoId())
+        .expiresAt(session.getExpiresAt())
+        .build();
+  }
+
+  /**
+   * Объект уже собран в MinIO: списка частей у multipart-загрузки больше нет.
+   */
+  private static boolean isAssembled(UploadSession session) {
+    return session.getStatus() == UploadSessionStatus.ASSEMBLED
+        || session.getStatus() == UploadSessionStatus.COMPLETED;
+  }
+
+  private UploadSession findSession(UUID sessionId, String ownerId) {
+    return uploadSessionRepository.findById(sessionId)
+        .filter(session -> session.getOwnerId().equals(ownerId))
+        .orElseThrow(() -> new ResourceNotFoundException("Сессия загрузки " + sessionId + " не найдена"));
+  }
+
+  private static void requireActive(UploadSession session) {
+    if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+      throw new ConflictException("Сессия загрузки " + session.getId() + " уже завершена");
+    }
+  }
+
+  private LocalDateTime nextExpiry() {
+    return LocalDateTime.now().plusMinutes(ttlMinutes);
+  }
+
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Операция с MinIO прервана", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Ошибка multipart-загрузки в MinIO", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import com.educationalplatform.streamingservice.model.enums.StorageLayout;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * LRU-кэш хранимых байт чанков видео перед MinIO: открытых данных для PLAIN и готовых
+ * кадров [IV][шифротекст] для ENCRYPTED_SEGMENTS. Данные лежат в direct
+ * ByteBuffer вне кучи, объём ограничен суммарным размером чанков в байтах.
+ * Одновременные промахи по одному чанку объединяются в одно чтение из хранилища.
+ * Раскладка хранения входит в ключ: чтение, начатое до смены раскладки и закончившееся
+ * после {@link #invalidate}, кладёт данные под старую раскладку, и их никто не прочитает.
+ */
+@Slf4j
+@Component
+public class VideoChunkCache {
+
+  private record ChunkKey(long videoId, StorageLayout layout, int chunkIndex) {
+
+    ChunkKey(VideoStreamMetadata video, int chunkIndex) {
+      this(video.getId(), video.getStorageLayout(), chunkIndex);
+    }
+  }
+
+  private final boolean enabled;
+  private final long maxBytes;
+  private final LinkedHashMap<ChunkKey, ByteBuffer> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private final Map<ChunkKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+  private long currentBytes;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public VideoChunkCache(
+      @Value("${video.chunk-cache.enabled:true}") boolean enabled,
+      @Value("${video.chunk-cache.max-bytes:268435456}") long maxBytes,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.maxBytes = maxBytes;
+    this.hits = Counter.builder("video.chunk.cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("video.chunk.cache.requests").tag("result", "miss").register(meterRegistry);
+    this.evictions = Counter.builder("video.chunk.cache.evictions").register(meterRegistry);
+    Gauge.builder("video.chunk.cache.size.bytes", this, VideoChunkCache::sizeInBytes).register(meterRegistry);
+    Gauge.builder("video.chunk.cache.entries", this, VideoChunkCache::entryCount).register(meterRegistry);
+  }
+
+  public byte[] getOrLoad(VideoStreamMetadata video, int chunkIndex, Supplier<byte[]> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+
+    ChunkKey key = new ChunkKey(video, chunkIndex);
+    byte[] cached = get(key);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+
+    CompletableFuture<byte[]> own = new CompletableFuture<>();
+    CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, own);
+    if (existing != null) {
+      return join(existing);
+    }
+    try {
+      byte[] data = loader.get();
+      put(key, data);
+      own.complete(data);
+      return data;
+    } catch (RuntimeException e) {
+      own.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, own);
+    }
+  }
+
+  /**
+   * Асинхронный вариант {@link #getOrLoad}: промах не занимает вызывающий поток, а
+   * одновременные промахи по одному чанку так же ждут одного чтения.
+   */
+  public CompletableFuture<byte[]> getOrLoadAsync(VideoStreamMetadata video, int chunkIndex,
+      Supplier<CompletableFuture<byte[]>> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+
+    ChunkKey key = new ChunkKey(video, chunkIndex);
+    byte[] cached = get(key);
+    if (cached != null) {
+      hits.increment();
+      return CompletableFuture.completedFuture(cached);
+    }
+    misses.increment();
+
+    CompletableFuture<byte[]> own = new CompletableFuture<>();
+    CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, own);
+    if (existing != null) {
+      return existing;
+    }
+    CompletableFuture<byte[]> load;
+    try {
+      load = loader.get();
+    } catch (RuntimeException e) {
+      load = CompletableFuture.failedFuture(e);
+    }
+    load.whenComplete((data, error) -> {
+      if (error == null) {
+        put(key, data);
+        own.complete(data);
+      } else {
+        own.completeExceptionally(error);
+      }
+      inFlight.remove(key, own);
+    });
+    return own;
+  }
+
+  public byte[] getIfPresent(VideoStreamMetadata video, int chunkIndex) {
+    if (!enabled) {
+      return null;
+    }
+    byte[] cached = get(new ChunkKey(video, chunkIndex));
+    if (cached != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return cached;
+  }
+
+  public void put(VideoStreamMetadata video, int chunkIndex, byte[] data) {
+    if (enabled) {
+      put(new ChunkKey(video, chunkIndex), data);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean contains(VideoStreamMetadata video, int chunkIndex) {
+    ChunkKey key = new ChunkKey(video, chunkIndex);
+    if (inFlight.containsKey(key)) {
+      return true;
+    }
+    synchronized (entries) {
+      return entries.containsKey(key);
+    }
+  }
+
+  public void invalidate(Long videoId) {
+    synchronized (entries) {
+      Iterator<Map.Entry<ChunkKey, ByteBuffer>> iterator = entries.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<ChunkKey, ByteBuffer> entry = iterator.next();
+        if (entry.getKey().videoId() == videoId) {
+          currentBytes -= entry.getValue().capacity();
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  public long sizeInBytes() {
+    synchronized (entries) {
+      return currentBytes;
+    }
+  }
+
+  public int entryCount() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private byte[] get(ChunkKey key) {
+    ByteBuffer buffer;
+    synchronized (entries) {
+      buffer = entries.get(key);
+    }
+    if (buffer == null) {
+      return null;
+    }
+    byte[] data = new byte[buffer.capacity()];
+    buffer.duplicate().clear().get(data);
+    return data;
+  }
+
+  private void put(ChunkKey key, byte[] data) {
+    if (data.length > maxBytes) {
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+    buffer.put(data).flip();
+
+    synchronized (entries) {
+      ByteBuffer previous = entries.put(key, buffer);
+      if (previous != null) {
+        currentBytes -= previous.capacity();
+      }
+      currentBytes += buffer.capacity();
+
+      Iterator<Map.Entry<ChunkKey, ByteBuffer>> iterator = entries.entrySet().iterator();
+      while (currentBytes > maxBytes && iterator.hasNext()) {
+        Map.Entry<ChunkKey, ByteBuffer> eldest = iterator.next();
+        currentBytes -= eldest.getValue().capacity();
+        iterator.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  private static byte[] join(CompletableFuture<byte[]> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.model.enums.EncryptionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Движок шифрования чанков без лишней работы на горячем пути: расшифрованные ключи
+ * кэшируются (LRU по строке ключа видео), а экземпляр {@link Cipher} создаётся один раз
+ * на поток и дальше только переинициализируется новым IV.
+ */
+@Slf4j
+@Component
+public class VideoCipherEngine {
+
+  private static final String KEY_ALGORITHM = "AES";
+
+  private final EncryptionMode mode;
+  private final Map<String, SecretKeySpec> keyCache;
+  private final ThreadLocal<Cipher> cipherHolder;
+
+  public VideoCipherEngine(
+      @Value("${video.encryption.mode:CBC}") String mode,
+      @Value("${video.encryption.key-cache-size:1024}") int keyCacheSize) {
+    this.mode = EncryptionMode.fromString(mode)
+        .orElseThrow(() -> new IllegalArgumentException("Неизвестный режим шифрования: " + mode));
+    this.keyCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, SecretKeySpec> eldest) {
+        return size() > keyCacheSize;
+      }
+    });
+    this.cipherHolder = ThreadLocal.withInitial(this::newCipher);
+    log.info("Шифрование видео чанков: {}", this.mode);
+  }
+
+  public EncryptionMode getMode() {
+    return mode;
+  }
+
+  public byte[] encrypt(byte[] data, String encryptionKey, byte[] initializationVector)
+      throws GeneralSecurityException {
+    Cipher cipher = cipherHolder.get();
+    cipher.init(Cipher.ENCRYPT_MODE, resolveKey(encryptionKey), parameterSpec(initializationVector));
+    return cipher.doFinal(data);
+  }
+
+  private SecretKeySpec resolveKey(String encryptionKey) {
+    SecretKeySpec key = keyCache.get(encryptionKey);
+    if (key == null) {
+      key = new SecretKeySpec(decodeKey(encryptionKey), KEY_ALGORITHM);
+      keyCache.put(encryptionKey, key);
+    }
+    return key;
+  }
+
+  private AlgorithmParameterSpec parameterSpec(byte[] initializationVector) {
+    if (mode == EncryptionMode.GCM) {
+      return new GCMParameterSpec(EncryptionMode.GCM_TAG_LENGTH_BITS, initializationVector);
+    }
+    return new IvParameterSpec(initializationVector);
+  }
+
+  private Cipher newCipher() {
+    try {
+      return Cipher.getInstance(mode.getTransformation());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Шифр " + mode.getTransformation() + " недоступен", e);
+    }
+  }
+
+  /**
+   * Ключи новых видео хранятся в Base64 (16/24/32 байта). Старые записи содержат
+   * произвольную строку (UUID) — из неё детерминированно выводится 256-битный ключ.
+   */
+  static byte[] decodeKey(String encryptionKey) {
+    try {
+      byte[] keyBytes = Base64.getDecoder().decode(encryptionKey);
+      if (keyBytes.length == 16 || keyBytes.length == 24 || keyBytes.length == 32) {
+        return keyBytes;
+      }
+    } catch (IllegalArgumentException ignored) {
+      // не Base64 — ключ старого формата
+    }
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(encryptionKey.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("SHA-256 not supported", e);
+    }
+  }
+}
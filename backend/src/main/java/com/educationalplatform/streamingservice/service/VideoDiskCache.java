@@ -0,0 +1,399 @@
+package com.educationalplatform.streamingservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Локальный дисковый уровень кэша объектов MinIO. Объекты видео неизменяемы (имя содержит UUID),
+ * поэтому после первого обращения объект целиком скачивается в локальный каталог, а диапазоны
+ * отдаются через memory-mapped {@link FileChannel}. Файл сначала пишется во временный и
+ * атомарно переименовывается, так что после сбоя в кэше не остаётся недокачанных объектов.
+ * Объекты больше {@code video.disk-cache.max-object-bytes} или четверти всего кэша не
+ * скачиваются: такой объект вытеснил бы весь кэш и сам был бы вытеснен следующим.
+ */
+@Slf4j
+@Component
+public class VideoDiskCache {
+
+  private static final String DATA_SUFFIX = ".bin";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+  private final boolean enabled;
+  private final Path directory;
+  private final long maxBytes;
+  private final long maxObjectBytes;
+  private final long minFreeBytes;
+  private final Map<String, CachedObject> index = new ConcurrentHashMap<>();
+  private final Map<Path, Long> restorable = new ConcurrentHashMap<>();
+  private final Set<String> populating = ConcurrentHashMap.newKeySet();
+  private final Set<String> tooLarge = ConcurrentHashMap.newKeySet();
+  private final AtomicLong currentBytes = new AtomicLong();
+  private final ThreadPoolExecutor populateExecutor;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+  private final Counter skipped;
+
+  public VideoDiskCache(
+      @Value("${video.disk-cache.enabled:false}") boolean enabled,
+      @Value("${video.disk-cache.directory:${java.io.tmpdir}/video-cache}") String directory,
+      @Value("${video.disk-cache.max-bytes:10737418240}") long maxBytes,
+      @Value("${video.disk-cache.max-object-bytes:2147483648}") long maxObjectBytes,
+      @Value("${video.disk-cache.min-free-bytes:1073741824}") long minFreeBytes,
+      @Value("${video.disk-cache.populate-threads:2}") int populateThreads,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.directory = Paths.get(directory);
+    this.maxBytes = maxBytes;
+    this.maxObjectBytes = Math.min(maxObjectBytes, maxBytes / 4);
+    this.minFreeBytes = minFreeBytes;
+    this.populateExecutor = new ThreadPoolExecutor(populateThreads, populateThreads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(populateThreads * 16),
+        runnable -> {
+          Thread thread = new Thread(runnable, "video-disk-cache");
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.populateExecutor.allowCoreThreadTimeOut(true);
+
+    this.hits = Counter.builder("video.disk.cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("video.disk.cache.requests").tag("result", "miss").register(meterRegistry);
+    this.evictions = Counter.builder("video.disk.cache.evictions").register(meterRegistry);
+    this.skipped = Counter.builder("video.disk.cache.populate.skipped").register(meterRegistry);
+    Gauge.builder("video.disk.cache.size.bytes", currentBytes, AtomicLong::get).register(meterRegistry);
+    Gauge.builder("video.disk.cache.entries", index, Map::size).register(meterRegistry);
+  }
+
+  @PostConstruct
+  void loadIndex() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    Files.createDirectories(directory);
+    List<Path> leftovers = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(TEMP_SUFFIX)) {
+          Files.deleteIfExists(file);
+        } else if (name.endsWith(DATA_SUFFIX)) {
+          leftovers.add(file);
+        }
+      }
+    }
+    // Имя объекта по хэшу не восстановить: файлы с прошлого запуска учитываются в объёме
+    // и попадают в индекс при первом обращении к объекту, самые старые — удаляются первыми.
+    leftovers.sort(Comparator.comparingLong(VideoDiskCache::lastModified));
+    for (Path file : leftovers) {
+      long size = Files.size(file);
+      restorable.put(file, size);
+      currentBytes.addAndGet(size);
+    }
+    evictIfNeeded();
+    log.info("Дисковый кэш видео: {}, лимит {} байт, занято {} байт", directory, maxBytes, currentBytes.get());
+  }
+
+  /**
+   * Открывает диапазон объекта из локального кэша или возвращает {@code null}, если объекта
+   * там нет.
+   */
+  public InputStream open(String objectName, long offset, long length) {
+    if (!enabled) {
+      return null;
+    }
+    CachedObject cached = lookup(objectName);
+    if (cached == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    cached.lastAccess = System.nanoTime();
+    long end = length < 0 ? cached.size : Math.min(cached.size, offset + length);
+    try {
+      return new MappedRangeInputStream(cached.path, offset, end);
+    } catch (IOException e) {
+      log.warn("Не удалось открыть файл дискового кэша {}: {}", cached.path, e.getMessage());
+      remove(objectName);
+      return null;
+    }
+  }
+
+  /**
+   * Асинхронно скачивает объект целиком в кэш, если его там ещё нет. Размер объекта
+   * запрашивается в фоне перед скачиванием; слишком большие объекты запоминаются и больше
+   * не запрашиваются.
+   */
+  public void populateAsync(String objectName, LongSupplier sizeLoader, Supplier<InputStream> loader) {
+    if (!enabled || index.containsKey(objectName) || tooLarge.contains(objectName)
+        || !populating.add(objectName)) {
+      return;
+    }
+    try {
+      populateExecutor.execute(() -> {
+        try {
+          long size = sizeLoader.getAsLong();
+          if (size > maxObjectBytes) {
+            tooLarge.add(objectName);
+            skipped.increment();
+            log.debug("Объект {} ({} байт) больше лимита дискового кэша {} байт", objectName, size, maxObjectBytes);
+            return;
+          }
+          long usable = Files.getFileStore(directory).getUsableSpace();
+          if (usable - size < minFreeBytes) {
+            skipped.increment();
+            log.warn("Объект {} не помещён в дисковый кэш: свободно {} байт, нужно {}", objectName, usable, size);
+            return;
+          }
+          populate(objectName, loader);
+        } catch (Exception e) {
+          log.warn("Не удалось поместить {} в дисковый кэш: {}", objectName, e.getMessage());
+        } finally {
+          populating.remove(objectName);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      populating.remove(objectName);
+    }
+  }
+
+  public void evict(String objectName) {
+    if (enabled) {
+      tooLarge.remove(objectName);
+      remove(objectName);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    populateExecutor.shutdownNow();
+  }
+
+  private CachedObject lookup(String objectName) {
+    CachedObject cached = index.get(objectName);
+    if (cached != null) {
+      return cached;
+    }
+    Path path = dataPath(objectName);
+    Long knownSize = restorable.remove(path);
+    if (knownSize == null) {
+      return null;
+    }
+    if (index.putIfAbsent(objectName, new CachedObject(path, knownSize)) != null) {
+      currentBytes.addAndGet(-knownSize);
+    }
+    return index.get(objectName);
+  }
+
+  private void populate(String objectName, Supplier<InputStream> loader) throws IOException {
+    Path target = dataPath(objectName);
+    Path temp = Files.createTempFile(directory, target.getFileName().toString(), TEMP_SUFFIX);
+    try {
+      try (InputStream in = loader.get();
+           FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+           OutputStream out = Channels.newOutputStream(channel)) {
+        in.transferTo(out);
+        out.flush();
+        channel.force(true);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+
+    CachedObject cached = new CachedObject(target, Files.size(target));
+    CachedObject previous = index.put(objectName, cached);
+    Long restoredSize = restorable.remove(target);
+    if (previous != null) {
+      currentBytes.addAndGet(-previous.size);
+    } else if (restoredSize != null) {
+      currentBytes.addAndGet(-restoredSize);
+    }
+    currentBytes.addAndGet(cached.size);
+    log.debug("Объект {} помещён в дисковый кэш ({} байт)", objectName, cached.size);
+    evictIfNeeded();
+  }
+
+  private synchronized void evictIfNeeded() {
+    if (currentBytes.get() <= maxBytes) {
+      return;
+    }
+    List<Map.Entry<String, CachedObject>> entries = new ArrayList<>(index.entrySet());
+    entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+    for (Map.Entry<String, CachedObject> entry : entries) {
+      if (currentBytes.get() <= maxBytes) {
+        break;
+      }
+      remove(entry.getKey());
+      evictions.increment();
+    }
+    for (Path file : new ArrayList<>(restorable.keySet())) {
+      if (currentBytes.get() <= maxBytes) {
+        break;
+      }
+      Long size = restorable.remove(file);
+      if (size != null) {
+        currentBytes.addAndGet(-size);
+        deleteQuietly(file);
+        evictions.increment();
+      }
+    }
+  }
+
+  private void remove(String objectName) {
+    CachedObject removed = index.remove(objectName);
+    Path path = removed != null ? removed.path : dataPath(objectName);
+    if (removed != null) {
+      currentBytes.addAndGet(-removed.size);
+    } else {
+      Long size = restorable.remove(path);
+      if (size != null) {
+        currentBytes.addAndGet(-size);
+      }
+    }
+    deleteQuietly(path);
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("Не удалось удалить файл дискового кэша {}: {}", path, e.getMessage());
+    }
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private Path dataPath(String objectName) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectName.getBytes(StandardCharsets.UTF_8));
+      return directory.resolve(HexFormat.of().formatHex(hash) + DATA_SUFFIX);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not supported", e);
+    }
+  }
+
+  private static final class CachedObject {
+    private final Path path;
+    private final long size;
+    private volatile long lastAccess = System.nanoTime();
+
+    private CachedObject(Path path, long size) {
+      this.path = path;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Читает диапазон [position, end) файла окнами memory-mapped буфера.
+   */
+  private static final class MappedRangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private ByteBuffer window;
+
+    private MappedRangeInputStream(Path path, long start, long end) throws IOException {
+      this.channel = FileChannel.open(path, StandardOpenOption.READ);
+      this.position = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!ensureWindow()) {
+        return -1;
+      }
+      return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      if (!ensureWindow()) {
+        return -1;
+      }
+      int count = Math.min(length, window.remaining());
+      window.get(buffer, offset, count);
+      return count;
+    }
+
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+      long transferred = 0;
+      byte[] buffer = new byte[64 * 1024];
+      int count;
+      while ((count = read(buffer, 0, buffer.length)) > 0) {
+        out.write(buffer, 0, count);
+        transferred += count;
+      }
+      return transferred;
+    }
+
+    private boolean ensureWindow() throws IOException {
+      if (window != null && window.hasRemaining()) {
+        return true;
+      }
+      if (position >= end) {
+        return false;
+      }
+      long size = Math.min(MAP_WINDOW, end - position);
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      position += size;
+      window = mapped;
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
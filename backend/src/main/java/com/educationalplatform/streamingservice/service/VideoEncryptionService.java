@@ -1,32 +1,26 @@
 package com.educationalplatform.streamingservice.service;
 
+import com.educationalplatform.streamingservice.model.enums.EncryptionMode;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.Cipher;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 import java.security.SecureRandom;
 import java.util.Base64;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class VideoEncryptionService {
 
-  private static final String AES_ALGORITHM = "AES/CBC/PKCS5Padding";
-  private static final int IV_LENGTH = 16;
+  private static final int KEY_LENGTH = 32;
 
   private final SecureRandom secureRandom = new SecureRandom();
+  private final VideoCipherEngine cipherEngine;
 
   public byte[] encrypt(byte[] data, String base64Key, byte[] initializationVector) {
     try {
-      byte[] keyBytes = Base64.getDecoder().decode(base64Key);
-      SecretKeySpec keySpec = new SecretKeySpec(keyBytes, "AES");
-      IvParameterSpec ivSpec = new IvParameterSpec(initializationVector);
-
-      Cipher cipher = Cipher.getInstance(AES_ALGORITHM);
-      cipher.init(Cipher.ENCRYPT_MODE, keySpec, ivSpec);
-      return cipher.doFinal(data);
+      return cipherEngine.encrypt(data, base64Key, initializationVector);
     } catch (Exception e) {
       log.error("Ошибка при шифровании видео чанка", e);
       throw new RuntimeException("Ошибка при шифровании данных", e);
@@ -40,8 +34,18 @@ public class VideoEncryptionService {
   }
 
   public byte[] generateIv() {
-    byte[] iv = new byte[IV_LENGTH];
+    byte[] iv = new byte[cipherEngine.getMode().getIvLength()];
     secureRandom.nextBytes(iv);
     return iv;
   }
-}
\ No newline at end of file
+
+  public String generateKey() {
+    byte[] key = new byte[KEY_LENGTH];
+    secureRandom.nextBytes(key);
+    return Base64.getEncoder().encodeToString(key);
+  }
+
+  public EncryptionMode getMode() {
+    return cipherEngine.getMode();
+  }
+}
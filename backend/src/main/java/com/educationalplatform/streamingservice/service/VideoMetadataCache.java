@@ -0,0 +1,59 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * In-process кэш метаданных видео для горячего пути отдачи чанков.
+ * Записи сбрасываются явно через {@link #invalidate(Long)} при изменении строки videos.
+ */
+@Component
+public class VideoMetadataCache {
+
+  private final Map<Long, VideoStreamMetadata> entries;
+  private final Counter hits;
+  private final Counter misses;
+
+  public VideoMetadataCache(
+      @Value("${video.metadata-cache.max-entries:10000}") int maxEntries,
+      MeterRegistry meterRegistry) {
+    this.entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, VideoStreamMetadata> eldest) {
+        return size() > maxEntries;
+      }
+    });
+    this.hits = Counter.builder("video.metadata.cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("video.metadata.cache.requests").tag("result", "miss").register(meterRegistry);
+    Gauge.builder("video.metadata.cache.entries", entries, Map::size).register(meterRegistry);
+  }
+
+  public VideoStreamMetadata get(Long videoId, Supplier<VideoStreamMetadata> loader) {
+    VideoStreamMetadata metadata = entries.get(videoId);
+    if (metadata != null) {
+      hits.increment();
+      return metadata;
+    }
+    misses.increment();
+    metadata = loader.get();
+    entries.put(videoId, metadata);
+    return metadata;
+  }
+
+  public void put(VideoStreamMetadata metadata) {
+    entries.put(metadata.getId(), metadata);
+  }
+
+  public void invalidate(Long videoId) {
+    entries.remove(videoId);
+  }
+}
@@ -0,0 +1,194 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.enums.VideoStatus;
+import com.educationalplatform.streamingservice.repository.VideoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая обработка загруженных видео. Загрузка сохраняет строку в статусе PENDING и сразу
+ * возвращает ответ; здесь видео переводится в PROCESSING, проходит шаги
+ * {@link VideoProcessingStage} и становится READY. Очередью служит сама таблица videos:
+ * видео, не поместившиеся в пул или ожидающие повтора, забирает периодический опрос, так что
+ * после перезапуска обработка продолжается с первого невыполненного шага. После
+ * {@code max-attempts} неудач видео переводится в ERROR.
+ */
+@Slf4j
+@Service
+public class VideoProcessingService {
+
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final VideoRepository videoRepository;
+  private final List<VideoProcessingStage> stages;
+  private final MeterRegistry meterRegistry;
+  private final int maxAttempts;
+  private final long retryBackoffMillis;
+  private final ThreadPoolExecutor executor;
+  private final AtomicLong backlog = new AtomicLong();
+
+  private final Counter succeeded;
+  private final Counter retried;
+  private final Counter failed;
+
+  public VideoProcessingService(
+      VideoRepository videoRepository,
+      List<VideoProcessingStage> stages,
+      MeterRegistry meterRegistry,
+      @Value("${video.processing.threads:2}") int threads,
+      @Value("${video.processing.queue-capacity:32}") int queueCapacity,
+      @Value("${video.processing.max-attempts:5}") int maxAttempts,
+      @Value("${video.processing.retry-backoff-ms:30000}") long retryBackoffMillis) {
+    this.videoRepository = videoRepository;
+    this.stages = stages;
+    this.meterRegistry = meterRegistry;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.retryBackoffMillis = retryBackoffMillis;
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "video-processing-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+
+    this.succeeded = Counter.builder("video.processing.jobs").tag("result", "succeeded").register(meterRegistry);
+    this.retried = Counter.builder("video.processing.jobs").tag("result", "retried").register(meterRegistry);
+    this.failed = Counter.builder("video.processing.jobs").tag("result", "failed").register(meterRegistry);
+    Gauge.builder("video.processing.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+    Gauge.builder("video.processing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    Gauge.builder("video.processing.backlog", backlog, AtomicLong::get).register(meterRegistry);
+  }
+
+  /**
+   * Возвращает в очередь видео, обработка которых прервалась остановкой приложения.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void recoverInterrupted() {
+    int recovered = videoRepository.transitionAll(VideoStatus.PROCESSING, VideoStatus.PENDING);
+    if (recovered > 0) {
+      log.info("Возвращено в очередь обработки видео: {}", recovered);
+    }
+  }
+
+  /**
+   * Пытается сразу взять видео в обработку. Если пул занят, видео остаётся PENDING
+   * и будет взято опросом.
+   */
+  public void enqueue(Long videoId) {
+    if (videoRepository.transition(videoId, VideoStatus.PENDING, VideoStatus.PROCESSING) == 0) {
+      return;
+    }
+    try {
+      executor.execute(() -> process(videoId));
+    } catch (RejectedExecutionException e) {
+      videoRepository.transition(videoId, VideoStatus.PROCESSING, VideoStatus.PENDING);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${video.processing.poll-interval-ms:5000}")
+  public void dispatchPending() {
+    backlog.set(videoRepository.countByStatus(VideoStatus.PENDING));
+    int capacity = executor.getQueue().remainingCapacity();
+    if (capacity == 0) {
+      return;
+    }
+    for (Long videoId : videoRepository.findDueIds(VideoStatus.PENDING, LocalDateTime.now(),
+        PageRequest.of(0, capacity))) {
+      enqueue(videoId);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void process(Long videoId) {
+    Video video = videoRepository.findById(videoId).orElse(null);
+    if (video == null) {
+      return;
+    }
+
+    String currentStage = null;
+    try {
+      for (VideoProcessingStage stage : stages) {
+        if (stage.isDone(video)) {
+          continue;
+        }
+        currentStage = stage.name();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        stage.process(video);
+        sample.stop(Timer.builder("video.processing.stage").tag("stage", stage.name()).register(meterRegistry));
+        video = videoRepository.save(video);
+      }
+
+      video.setStatus(VideoStatus.READY);
+      video.setProcessingError(null);
+      video.setNextAttemptAt(null);
+      videoRepository.save(video);
+      succeeded.increment();
+      log.info("Видео {} обработано и готово к просмотру", videoId);
+    } catch (Exception e) {
+      onFailure(videoId, currentStage, e);
+    }
+  }
+
+  private void onFailure(Long videoId, String stage, Exception error) {
+    try {
+      // Сущность перечитывается: упавший шаг мог частично изменить поля.
+      Video video = videoRepository.findById(videoId).orElse(null);
+      if (video == null) {
+        return;
+      }
+      int attempts = video.getProcessingAttempts() + 1;
+      video.setProcessingAttempts(attempts);
+      video.setProcessingError(truncate(stage + ": " + error.getMessage()));
+      if (attempts >= maxAttempts) {
+        video.setStatus(VideoStatus.ERROR);
+        video.setNextAttemptAt(null);
+        failed.increment();
+        log.error("Обработка видео {} окончательно не удалась на шаге {}", videoId, stage, error);
+      } else {
+        long delay = retryBackoffMillis << Math.min(attempts - 1, 10);
+        video.setStatus(VideoStatus.PENDING);
+        video.setNextAttemptAt(LocalDateTime.now().plus(delay, ChronoUnit.MILLIS));
+        retried.increment();
+        log.warn("Обработка видео {} не удалась на шаге {} (попытка {}/{}), повтор через {} мс: {}",
+            videoId, stage, attempts, maxAttempts, delay, error.getMessage());
+      }
+      videoRepository.save(video);
+    } catch (RuntimeException e) {
+      log.error("Не удалось сохранить результат обработки видео {}", videoId, e);
+    }
+  }
+
+  private static String truncate(String message) {
+    return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+  }
+}
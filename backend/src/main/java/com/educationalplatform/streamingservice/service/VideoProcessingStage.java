@@ -0,0 +1,17 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.entity.Video;
+
+/**
+ * Шаг фоновой обработки загруженного видео. Шаги выполняются в порядке {@code @Order} и должны
+ * быть идемпотентны: после сбоя обработка повторяется с первого невыполненного шага.
+ * Шаг меняет поля переданной сущности только после успешного завершения работы.
+ */
+public interface VideoProcessingStage {
+
+  String name();
+
+  boolean isDone(Video video);
+
+  void process(Video video) throws Exception;
+}
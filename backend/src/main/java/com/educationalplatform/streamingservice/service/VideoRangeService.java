@@ -0,0 +1,219 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отдаёт видео целиком или по диапазонам байт (RFC 9110, Range / If-Range).
+ * Каждый диапазон читается из MinIO отдельным ranged GET, поэтому клиент
+ * получает только запрошенные байты. Объект видео после загрузки не меняется, поэтому
+ * ответ кэшируется браузером надолго, а If-None-Match / If-Modified-Since
+ * отвечаются 304 без обращения к MinIO.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VideoRangeService {
+
+  private static final String BYTES = "bytes";
+  private static final String CRLF = "\r\n";
+  private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+
+  private final MinioStorageService minioStorageService;
+
+  public ResponseEntity<StreamingResponseBody> buildResponse(VideoStreamMetadata video, HttpHeaders requestHeaders) {
+    long fileSize = video.getFileSize();
+    MediaType mediaType = MediaType.parseMediaType(video.getMimeType());
+    String etag = buildEtag(video);
+    long lastModified = lastModifiedMillis(video);
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(etag);
+    if (lastModified > 0) {
+      headers.setLastModified(lastModified);
+    }
+    headers.setCacheControl(IMMUTABLE);
+    if (isNotModified(requestHeaders, etag, lastModified)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+    }
+    headers.set(HttpHeaders.ACCEPT_RANGES, BYTES);
+    headers.setContentDisposition(ContentDisposition.inline()
+        .filename(video.getTitle(), StandardCharsets.UTF_8)
+        .build());
+
+    List<HttpRange> ranges = resolveRanges(requestHeaders, etag, lastModified);
+    if (ranges.isEmpty()) {
+      headers.setContentType(mediaType);
+      headers.setContentLength(fileSize);
+      return ResponseEntity.ok()
+          .headers(headers)
+          .body(out -> copy(video.getFilePath(), 0, fileSize, out));
+    }
+
+    List<long[]> spans = new ArrayList<>(ranges.size());
+    long requested = 0;
+    try {
+      for (HttpRange range : ranges) {
+        long start = range.getRangeStart(fileSize);
+        long end = range.getRangeEnd(fileSize);
+        spans.add(new long[] {start, end});
+        requested += end - start + 1;
+      }
+    } catch (IllegalArgumentException e) {
+      log.debug("Неудовлетворимый диапазон для видео {}: {}", video.getId(), e.getMessage());
+      return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .header(HttpHeaders.ACCEPT_RANGES, BYTES)
+          .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+          .build();
+    }
+
+    if (spans.size() > 1 && requested > fileSize) {
+      // Пересекающиеся диапазоны больше самого файла: отдаём его целиком, как это делает Spring
+      headers.setContentType(mediaType);
+      headers.setContentLength(fileSize);
+      return ResponseEntity.ok()
+          .headers(headers)
+          .body(out -> copy(video.getFilePath(), 0, fileSize, out));
+    }
+
+    if (spans.size() == 1) {
+      long start = spans.get(0)[0];
+      long end = spans.get(0)[1];
+      headers.setContentType(mediaType);
+      headers.setContentLength(end - start + 1);
+      headers.set(HttpHeaders.CONTENT_RANGE, contentRange(start, end, fileSize));
+      return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+          .headers(headers)
+          .body(out -> copy(video.getFilePath(), start, end - start + 1, out));
+    }
+
+    String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+    List<byte[]> partHeaders = new ArrayList<>(spans.size());
+    long contentLength = 0;
+    for (long[] span : spans) {
+      byte[] partHeader = (CRLF + "--" + boundary + CRLF
+          + HttpHeaders.CONTENT_TYPE + ": " + mediaType + CRLF
+          + HttpHeaders.CONTENT_RANGE + ": " + contentRange(span[0], span[1], fileSize) + CRLF
+          + CRLF).getBytes(StandardCharsets.US_ASCII);
+      partHeaders.add(partHeader);
+      contentLength += partHeader.length + span[1] - span[0] + 1;
+    }
+    byte[] closing = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+    contentLength += closing.length;
+
+    headers.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+    headers.setContentLength(contentLength);
+    return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+        .headers(headers)
+        .body(out -> {
+          for (int i = 0; i < spans.size(); i++) {
+            long[] span = spans.get(i);
+            out.write(partHeaders.get(i));
+            copy(video.getFilePath(), span[0], span[1] - span[0] + 1, out);
+          }
+          out.write(closing);
+        });
+  }
+
+  private List<HttpRange> resolveRanges(HttpHeaders requestHeaders, String etag, long lastModified) {
+    String rangeHeader = requestHeaders.getFirst(HttpHeaders.RANGE);
+    if (rangeHeader == null || !isIfRangeSatisfied(requestHeaders, etag, lastModified)) {
+      return Collections.emptyList();
+    }
+    try {
+      return HttpRange.parseRanges(rangeHeader);
+    } catch (IllegalArgumentException e) {
+      // Некорректный Range по RFC игнорируется, отдаём ресурс целиком
+      log.debug("Игнорируем некорректный заголовок Range '{}': {}", rangeHeader, e.getMessage());
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * If-None-Match сравнивается слабо (RFC 9110, 13.1.2); If-Modified-Since учитывается только
+   * без If-None-Match.
+   */
+  private static boolean isNotModified(HttpHeaders requestHeaders, String etag, long lastModified) {
+    List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+    if (!ifNoneMatch.isEmpty()) {
+      for (String tag : ifNoneMatch) {
+        if ("*".equals(tag) || etag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    long ifModifiedSince = requestHeaders.getIfModifiedSince();
+    return ifModifiedSince >= 0 && lastModified > 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+  }
+
+  private boolean isIfRangeSatisfied(HttpHeaders requestHeaders, String etag, long lastModified) {
+    String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+    if (ifRange.startsWith("\"")) {
+      return ifRange.equals(etag);
+    }
+    if (ifRange.startsWith("W/")) {
+      return false;
+    }
+    try {
+      long ifRangeDate = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME)
+          .toInstant().toEpochMilli();
+      return lastModified > 0 && lastModified / 1000 == ifRangeDate / 1000;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private void copy(String filePath, long offset, long length, OutputStream out) throws IOException {
+    try (InputStream in = minioStorageService.getVideoInputStream(filePath, offset, length)) {
+      in.transferTo(out);
+    }
+  }
+
+  private static String contentRange(long start, long end, long total) {
+    return "bytes " + start + "-" + end + "/" + total;
+  }
+
+  /**
+   * ETag зависит только от объекта в хранилище: updatedAt меняется и при обработке видео,
+   * когда байты остаются прежними.
+   */
+  static String buildEtag(VideoStreamMetadata video) {
+    String object = DigestUtils.md5DigestAsHex(video.getFilePath().getBytes(StandardCharsets.UTF_8));
+    return "\"" + video.getId() + "-" + video.getFileSize() + "-" + object.substring(0, 16) + "\"";
+  }
+
+  static long lastModifiedMillis(VideoStreamMetadata video) {
+    if (video.getUpdatedAt() == null) {
+      return 0;
+    }
+    return video.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+}
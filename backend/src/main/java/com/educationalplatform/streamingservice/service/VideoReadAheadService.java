@@ -0,0 +1,183 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Упреждающее чтение чанков: после отдачи чанка N зритель почти наверняка запросит N+1..N+k,
+ * поэтому они заранее загружаются в {@link VideoChunkCache}. Окно растёт при последовательном
+ * просмотре и сбрасывается при перемотке; при перемотке и простое зрителя ещё не начатые
+ * задачи отменяются.
+ */
+@Slf4j
+@Service
+public class VideoReadAheadService {
+
+  private final VideoChunkCache chunkCache;
+  private final boolean enabled;
+  private final int minWindow;
+  private final int maxWindow;
+  private final long idleTimeoutMillis;
+  private final ThreadPoolExecutor executor;
+  private final Map<String, ReadAheadSession> sessions = new ConcurrentHashMap<>();
+  private volatile long lastCleanupMillis = System.currentTimeMillis();
+
+  private final Counter scheduled;
+  private final Counter cancelled;
+  private final Counter rejected;
+
+  public VideoReadAheadService(
+      VideoChunkCache chunkCache,
+      MeterRegistry meterRegistry,
+      @Value("${video.read-ahead.enabled:true}") boolean enabled,
+      @Value("${video.read-ahead.min-window:1}") int minWindow,
+      @Value("${video.read-ahead.max-window:4}") int maxWindow,
+      @Value("${video.read-ahead.threads:4}") int threads,
+      @Value("${video.read-ahead.queue-capacity:64}") int queueCapacity,
+      @Value("${video.read-ahead.idle-timeout-ms:60000}") long idleTimeoutMillis) {
+    this.chunkCache = chunkCache;
+    this.enabled = enabled && chunkCache.isEnabled();
+    this.minWindow = Math.max(1, minWindow);
+    this.maxWindow = Math.max(this.minWindow, maxWindow);
+    this.idleTimeoutMillis = idleTimeoutMillis;
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "video-read-ahead-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+
+    this.scheduled = Counter.builder("video.read-ahead.tasks").tag("result", "scheduled").register(meterRegistry);
+    this.cancelled = Counter.builder("video.read-ahead.tasks").tag("result", "cancelled").register(meterRegistry);
+    this.rejected = Counter.builder("video.read-ahead.tasks").tag("result", "rejected").register(meterRegistry);
+    Gauge.builder("video.read-ahead.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+    Gauge.builder("video.read-ahead.sessions", sessions, Map::size).register(meterRegistry);
+  }
+
+  /**
+   * Сообщает, что зритель получил чанк {@code chunkIndex}, и планирует загрузку следующих.
+   */
+  public void onChunkServed(String viewerId, VideoStreamMetadata video, int chunkIndex,
+      IntFunction<byte[]> chunkLoader) {
+    if (!enabled) {
+      return;
+    }
+    cleanupIdleSessions();
+
+    String sessionKey = viewerId + ":" + video.getId();
+    ReadAheadSession session = sessions.computeIfAbsent(sessionKey, key -> new ReadAheadSession(minWindow));
+    synchronized (session) {
+      session.lastAccessMillis = System.currentTimeMillis();
+      if (session.lastIndex >= 0 && chunkIndex == session.lastIndex + 1) {
+        session.window = Math.min(session.window * 2, maxWindow);
+      } else if (chunkIndex != session.lastIndex) {
+        session.window = minWindow;
+        cancelPending(session, Integer.MAX_VALUE);
+      }
+      session.lastIndex = chunkIndex;
+      cancelPending(session, chunkIndex);
+
+      int last = Math.min(chunkIndex + session.window, video.getTotalChunks() - 1);
+      for (int next = chunkIndex + 1; next <= last; next++) {
+        if (session.pending.containsKey(next) || chunkCache.contains(video, next)) {
+          continue;
+        }
+        int index = next;
+        try {
+          Future<?> future = executor.submit(() -> prefetch(video, index, chunkLoader));
+          session.pending.put(index, future);
+          scheduled.increment();
+        } catch (RejectedExecutionException e) {
+          rejected.increment();
+          break;
+        }
+      }
+    }
+  }
+
+  private void prefetch(VideoStreamMetadata video, int chunkIndex, IntFunction<byte[]> chunkLoader) {
+    try {
+      chunkCache.getOrLoad(video, chunkIndex, () -> chunkLoader.apply(chunkIndex));
+    } catch (RuntimeException e) {
+      log.warn("Не удалось заранее загрузить чанк {} видео {}: {}", chunkIndex, video.getId(), e.getMessage());
+    }
+  }
+
+  /**
+   * Отменяет ещё не начатые задачи: все до {@code upToIndex} включительно уже не нужны.
+   * Запущенные задачи не прерываются, чтобы не сорвать запрос, ожидающий тот же чанк.
+   */
+  private void cancelPending(ReadAheadSession session, int upToIndex) {
+    Iterator<Map.Entry<Integer, Future<?>>> iterator = session.pending.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Integer, Future<?>> entry = iterator.next();
+      Future<?> future = entry.getValue();
+      if (future.isDone()) {
+        iterator.remove();
+      } else if (entry.getKey() <= upToIndex) {
+        if (future.cancel(false)) {
+          cancelled.increment();
+        }
+        iterator.remove();
+      }
+    }
+  }
+
+  private void cleanupIdleSessions() {
+    long now = System.currentTimeMillis();
+    if (now - lastCleanupMillis < idleTimeoutMillis) {
+      return;
+    }
+    lastCleanupMillis = now;
+    sessions.entrySet().removeIf(entry -> {
+      ReadAheadSession session = entry.getValue();
+      synchronized (session) {
+        if (now - session.lastAccessMillis < idleTimeoutMillis) {
+          return false;
+        }
+        cancelPending(session, Integer.MAX_VALUE);
+        return true;
+      }
+    });
+    executor.purge();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static final class ReadAheadSession {
+    private final Map<Integer, Future<?>> pending = new TreeMap<>();
+    private int lastIndex = -1;
+    private int window;
+    private long lastAccessMillis;
+
+    private ReadAheadSession(int window) {
+      this.window = window;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.educationalplatform.streamingservice.service;
+
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import com.educationalplatform.streamingservice.model.enums.EncryptionMode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Предварительное шифрование видео при загрузке. Все чанки пишутся в один объект кадрами
+ * [IV][шифротекст]; длина шифротекста однозначно определяется режимом AES и размером чанка,
+ * поэтому кадр i начинается со смещения {@code i * stride} и читается обычным ranged GET.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VideoSegmentService {
+
+  private static final String SEGMENTS_SUFFIX = ".segments";
+
+  private final VideoEncryptionService encryptionService;
+  private final StreamingUploadService streamingUploadService;
+
+  public String segmentsPathFor(String filePath) {
+    return filePath + SEGMENTS_SUFFIX;
+  }
+
+  /**
+   * Шифрует исходный файл по чанкам и загружает кадры одним объектом. Кадры шифруются по мере
+   * чтения и отправляются в MinIO параллельными частями (см. {@link StreamingUploadService}).
+   */
+  public void writeSegments(InputStream source, long fileSize, int chunkSize, String encryptionKey,
+      String segmentsPath) {
+    EncryptionMode mode = encryptionService.getMode();
+    long totalSize = segmentsObjectSize(mode, fileSize, chunkSize);
+    int totalChunks = ChunkSizePolicy.totalChunks(fileSize, chunkSize);
+
+    try (InputStream frames = new EncryptingFrameInputStream(source, chunkSize, totalChunks, encryptionKey)) {
+      long written = streamingUploadService.upload(frames, segmentsPath, MediaType.APPLICATION_OCTET_STREAM_VALUE);
+      if (written != totalSize) {
+        throw new IllegalStateException("Размер сегментов " + written + " не совпадает с ожидаемым " + totalSize);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Не удалось зашифровать сегменты видео", e);
+    }
+    log.info("Видео зашифровано сегментами: {}, чанков={}, режим={}", segmentsPath, totalChunks, mode.name());
+  }
+
+  public static long frameStride(EncryptionMode mode, int chunkSize) {
+    return mode.getIvLength() + mode.getCiphertextLength(chunkSize);
+  }
+
+  public static long frameOffset(VideoStreamMetadata video, int chunkIndex) {
+    return chunkIndex * frameStride(video.getEncryptionMode(), video.getChunkSize());
+  }
+
+  public static int frameLength(VideoStreamMetadata video, int chunkIndex) {
+    long plainOffset = (long) chunkIndex * video.getChunkSize();
+    int plainLength = (int) Math.min(video.getChunkSize(), video.getFileSize() - plainOffset);
+    EncryptionMode mode = video.getEncryptionMode();
+    return mode.getIvLength() + mode.getCiphertextLength(plainLength);
+  }
+
+  private static long segmentsObjectSize(EncryptionMode mode, long fileSize, int chunkSize) {
+    long fullChunks = fileSize / chunkSize;
+    int tail = (int) (fileSize % chunkSize);
+    long size = fullChunks * frameStride(mode, chunkSize);
+    if (tail > 0) {
+      size += mode.getIvLength() + mode.getCiphertextLength(tail);
+    }
+    return size;
+  }
+
+  private final class EncryptingFrameInputStream extends InputStream {
+
+    private final InputStream source;
+    private final int chunkSize;
+    private final int totalChunks;
+    private final String encryptionKey;
+    private int chunkIndex;
+    private byte[] frame = new byte[0];
+    private int position;
+
+    private EncryptingFrameInputStream(InputStream source, int chunkSize, int totalChunks, String encryptionKey) {
+      this.source = source;
+      this.chunkSize = chunkSize;
+      this.totalChunks = totalChunks;
+      this.encryptionKey = encryptionKey;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!fill()) {
+        return -1;
+      }
+      return frame[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      int count = Math.min(length, frame.length - position);
+      System.arraycopy(frame, position, buffer, offset, count);
+      position += count;
+      return count;
+    }
+
+    private boolean fill() throws IOException {
+      if (position < frame.length) {
+        return true;
+      }
+      if (chunkIndex >= totalChunks) {
+        return false;
+      }
+      byte[] plain = source.readNBytes(chunkSize);
+      if (plain.length == 0) {
+        return false;
+      }
+      byte[] iv = encryptionService.generateIv();
+      byte[] encrypted = encryptionService.encrypt(plain, encryptionKey, iv);
+      frame = new byte[iv.length + encrypted.length];
+      System.arraycopy(iv, 0, frame, 0, iv.length);
+      System.arraycopy(encrypted, 0, frame, iv.length, encrypted.length);
+      position = 0;
+      chunkIndex++;
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      source.close();
+    }
+  }
+}
@@ -3,29 +3,34 @@ package com.educationalplatform.streamingservice.service;
 import com.educationalplatform.streamingservice.entity.Video;
 import com.educationalplatform.streamingservice.exception.ResourceNotFoundException;
 import com.educationalplatform.streamingservice.mapper.VideoMapper;
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
 import com.educationalplatform.streamingservice.model.dto.ChunkResponseDTO;
 import com.educationalplatform.streamingservice.model.dto.VideoDTO;
 import com.educationalplatform.streamingservice.model.dto.VideoInfoDTO;
+import com.educationalplatform.streamingservice.model.enums.StorageLayout;
 import com.educationalplatform.streamingservice.model.enums.VideoFormat;
 import com.educationalplatform.streamingservice.model.enums.VideoStatus;
 import com.educationalplatform.streamingservice.repository.VideoRepository;
-import io.minio.GetObjectArgs;
-import io.minio.MinioClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,12 +42,20 @@ public class VideoService {
   private final VideoMapper videoMapper;
   private final VideoEncryptionService encryptionService;
   private final MinioStorageService minioStorageService;
-  private final MinioClient minioClient;
+  private final VideoRangeService videoRangeService;
+  private final HlsService hlsService;
+  private final VideoChunkCache chunkCache;
+  private final VideoMetadataCache metadataCache;
+  private final VideoReadAheadService readAheadService;
+  private final ChunkSizePolicy chunkSizePolicy;
+  private final MetadataStage metadataStage;
+  private final StreamingUploadService streamingUploadService;
+  private final VideoProcessingService processingService;
 
-  @Value("${minio.bucket-name}")
-  private String bucketName;
+  private static final int FRAME_BUFFER_SIZE = 64 * 1024;
 
-  private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+  @Value("${video.batch.max-chunks:16}")
+  private int maxBatchChunks;
 
   public List<VideoDTO> getAllVideos() {
     return videoRepository.findAll()
@@ -53,98 +66,289 @@ public class VideoService {
 
   public VideoInfoDTO getVideoInfo(Long id) {
     Video video = findVideoById(id);
-    return videoMapper.toInfoDTO(video);
+    metadataCache.put(VideoStreamMetadata.fromEntity(video));
+    VideoInfoDTO info = videoMapper.toInfoDTO(video);
+    info.setEncryptionMode(video.getEncryptionMode() != null ? video.getEncryptionMode() : encryptionService.getMode());
+    return info;
   }
 
-  public ChunkResponseDTO getEncryptedChunk(Long id, Integer chunkIndex) {
-    Video video = findVideoById(id);
+  /**
+   * Отдаёт чанк, не занимая поток запроса на время чтения из хранилища: промах кэша
+   * читается через асинхронный клиент MinIO, шифрование выполняется по его завершении.
+   */
+  public CompletableFuture<ChunkResponseDTO> getEncryptedChunk(Long id, Integer chunkIndex, String viewerId) {
+    VideoStreamMetadata video = findMetadataById(id);
 
     if (chunkIndex < 0 || chunkIndex >= video.getTotalChunks()) {
       throw new ResourceNotFoundException("Индекс чанка " + chunkIndex + " не найден");
     }
 
-    try {
-      long chunkSize = video.getChunkSize();
-      long offset = (long) chunkIndex * chunkSize;
-      long length = Math.min(chunkSize, video.getFileSize() - offset);
-
-      try (InputStream stream = minioClient.getObject(
-          GetObjectArgs.builder()
-              .bucket(bucketName)
-              .object(video.getFilePath())
-              .offset(offset)
-              .length(length)
-              .build())) {
-
-        byte[] chunkData = stream.readAllBytes();
-        byte[] encryptedData = encryptionService.encrypt(chunkData, video.getEncryptionKey());
-
-        return ChunkResponseDTO.builder()
-            .chunkIndex(chunkIndex)
-            .encryptedData(encryptedData)
-            .build();
+    return chunkCache.getOrLoadAsync(video, chunkIndex, () -> readChunkAsync(video, chunkIndex))
+        .thenApply(chunkData -> {
+          readAheadService.onChunkServed(viewerId, video, chunkIndex, next -> readChunk(video, next));
+          return toChunkResponse(video, chunkIndex, chunkData);
+        })
+        .exceptionally(e -> {
+          Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+          log.error("Не удалось получить/зашифровать чанк {} для видео {}", chunkIndex, id, cause);
+          throw new RuntimeException("Ошибка обработки видео чанка", cause);
+        });
+  }
+
+  /**
+   * Отдаёт чанки from..to одним ответом. Все отсутствующие в кэше чанки читаются из MinIO
+   * одним ranged GET, каждый чанк шифруется отдельно (или берётся готовым, если видео
+   * зашифровано при загрузке) и записывается кадром (см. {@link ChunkResponseDTO#writeFrame}).
+   */
+  public ResponseEntity<StreamingResponseBody> streamChunkBatch(Long id, int from, int to, String viewerId) {
+    VideoStreamMetadata video = findMetadataById(id);
+
+    if (from < 0 || to >= video.getTotalChunks()) {
+      throw new ResourceNotFoundException("Диапазон чанков " + from + ".." + to + " не найден");
+    }
+    if (from > to || to - from + 1 > maxBatchChunks) {
+      throw new IllegalArgumentException("Диапазон чанков должен быть непустым и содержать не более "
+          + maxBatchChunks + " чанков");
+    }
+
+    byte[][] cached = new byte[to - from + 1][];
+    int firstMissing = -1;
+    int lastMissing = -1;
+    for (int index = from; index <= to; index++) {
+      cached[index - from] = chunkCache.getIfPresent(video, index);
+      if (cached[index - from] == null) {
+        firstMissing = firstMissing < 0 ? index : firstMissing;
+        lastMissing = index;
       }
-    } catch (Exception e) {
-      log.error("Не удалось получить/зашифровать чанк {} для видео {}", chunkIndex, id, e);
-      throw new RuntimeException("Ошибка обработки видео чанка", e);
     }
+    int spanFrom = firstMissing;
+    int spanTo = lastMissing;
+
+    StreamingResponseBody body = out -> {
+      DataOutputStream frames = new DataOutputStream(new BufferedOutputStream(out, FRAME_BUFFER_SIZE));
+      InputStream span = spanFrom < 0 ? null : openChunkSpan(video, spanFrom, spanTo);
+      try {
+        for (int index = from; index <= to; index++) {
+          byte[] chunkData;
+          if (span != null && index >= spanFrom && index <= spanTo) {
+            chunkData = readChunkData(span, video, index);
+            if (cached[index - from] == null) {
+              chunkCache.put(video, index, chunkData);
+            }
+          } else {
+            chunkData = cached[index - from];
+          }
+          toChunkResponse(video, index, chunkData).writeFrame(frames);
+        }
+        frames.flush();
+      } finally {
+        if (span != null) {
+          span.close();
+        }
+      }
+    };
+    readAheadService.onChunkServed(viewerId, video, to, next -> readChunk(video, next));
+
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+        .header(ChunkResponseDTO.HEADER_CHUNK_FROM, String.valueOf(from))
+        .header(ChunkResponseDTO.HEADER_CHUNK_TO, String.valueOf(to))
+        .body(body);
   }
 
   public String getVideoContentType(Long id) {
-    Video video = findVideoById(id);
-    return video.getMimeType();
+    return findMetadataById(id).getMimeType();
   }
 
-  public ResponseEntity<Resource> streamVideo(Long id) {
-    Video video = findVideoById(id);
-    InputStream videoStream = minioStorageService.getVideoInputStream(video.getFilePath());
+  public ResponseEntity<StreamingResponseBody> streamVideo(Long id, HttpHeaders requestHeaders) {
+    VideoStreamMetadata video = findMetadataById(id);
+    return videoRangeService.buildResponse(video, requestHeaders);
+  }
 
-    return ResponseEntity.ok()
-        .contentType(MediaType.parseMediaType(video.getMimeType()))
-        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + video.getTitle() + "\"")
-        .body(new InputStreamResource(videoStream));
+  public ResponseEntity<StreamingResponseBody> streamHls(Long id, String fileName, MediaType mediaType,
+      HttpHeaders requestHeaders) {
+    return hlsService.buildResponse(findMetadataById(id), fileName, mediaType, requestHeaders);
   }
 
-  @Transactional
   public VideoDTO uploadNewVideo(MultipartFile file, String title, String description) {
-    String originalFilename = file.getOriginalFilename();
-    String extension = "";
-    if (originalFilename != null && originalFilename.contains(".")) {
-      extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-    }
-    String minioFileName = "videos/" + UUID.randomUUID() + extension;
-
+    String minioFileName = newObjectName(file.getOriginalFilename());
     minioStorageService.uploadVideo(file, minioFileName);
+    return saveUploadedVideo(minioFileName, file.getSize(), file.getContentType(), title, description);
+  }
+
+  /**
+   * Загружает видео прямо из тела запроса: байты уходят в MinIO частями по мере чтения,
+   * без буферизации всего файла на диске или в памяти.
+   */
+  public VideoDTO uploadVideoStream(InputStream body, String contentType, String originalFilename, String title,
+      String description) {
+    String mimeType = MediaType.APPLICATION_OCTET_STREAM_VALUE.equals(contentType) ? null : contentType;
+    String minioFileName = newObjectName(originalFilename);
+    long fileSize = streamingUploadService.upload(body, minioFileName, mimeType);
+    return registerUploadedVideo(minioFileName, fileSize, mimeType, title, description);
+  }
+
+  /**
+   * Регистрирует видео, объект которого уже целиком лежит в MinIO. Если видео для объекта
+   * уже зарегистрировано, возвращает его.
+   */
+  public VideoDTO registerUploadedVideo(String minioFileName, long fileSize, String contentType, String title,
+      String description) {
+    return videoRepository.findByFilePath(minioFileName)
+        .map(videoMapper::toDTO)
+        .orElseGet(() -> saveUploadedVideo(minioFileName, fileSize, contentType, title, description));
+  }
+
+  public VideoDTO getVideo(Long id) {
+    return videoMapper.toDTO(findVideoById(id));
+  }
 
+  /**
+   * Сохраняет видео в статусе PENDING и ставит его в очередь обработки: контрольная сумма,
+   * метаданные и шифрование сегментами выполняются в фоне {@link VideoProcessingService}.
+   */
+  private VideoDTO saveUploadedVideo(String minioFileName, long fileSize, String contentType, String title,
+      String description) {
     VideoFormat format = VideoFormat.MP4;
-    if (file.getContentType() != null) {
-      if (file.getContentType().contains("webm")) format = VideoFormat.WEBM;
-      else if (file.getContentType().contains("avi")) format = VideoFormat.AVI;
+    if (contentType != null) {
+      if (contentType.contains("webm")) format = VideoFormat.WEBM;
+      else if (contentType.contains("avi")) format = VideoFormat.AVI;
+      else if (contentType.contains("quicktime")) format = VideoFormat.MOV;
     }
 
-    long fileSize = file.getSize();
-    int totalChunks = (int) Math.ceil((double) fileSize / DEFAULT_CHUNK_SIZE);
+    Integer durationSeconds = readDurationSeconds(minioFileName, fileSize, format);
+    int chunkSize = chunkSizePolicy.chooseChunkSize(fileSize, durationSeconds);
+    int totalChunks = ChunkSizePolicy.totalChunks(fileSize, chunkSize);
 
     Video video = Video.builder()
         .title(title)
         .description(description)
         .filePath(minioFileName)
         .fileSize(fileSize)
-        .mimeType(file.getContentType() != null ? file.getContentType() : "video/mp4")
+        .mimeType(contentType != null ? contentType : "video/mp4")
         .format(format)
-        .status(VideoStatus.READY)
-        .chunkSize(DEFAULT_CHUNK_SIZE)
+        .status(VideoStatus.PENDING)
+        .chunkSize(chunkSize)
         .totalChunks(totalChunks)
-        .encryptionKey(UUID.randomUUID().toString())
-        .durationSeconds(0)
+        .encryptionKey(encryptionService.generateKey())
+        .storageLayout(StorageLayout.PLAIN)
+        .durationSeconds(durationSeconds != null ? durationSeconds : 0)
         .build();
 
     video = videoRepository.save(video);
     log.info("Видео сохранено в БД: id={}, title={}", video.getId(), video.getTitle());
+    processingService.enqueue(video.getId());
 
     return videoMapper.toDTO(video);
   }
 
+  /**
+   * Длительность нужна до выбора размера чанка: по ней чанк покрывает заданное время
+   * воспроизведения. Если moov не читается, размер выбирается по размеру файла.
+   */
+  private Integer readDurationSeconds(String minioFileName, long fileSize, VideoFormat format) {
+    if (format != VideoFormat.MP4 && format != VideoFormat.MOV) {
+      return null;
+    }
+    try {
+      return metadataStage.readDurationSeconds(minioFileName, fileSize);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Не удалось прочитать длительность {} при регистрации: {}", minioFileName, e.getMessage());
+      return null;
+    }
+  }
+
+  static String newObjectName(String originalFilename) {
+    String extension = "";
+    if (originalFilename != null && originalFilename.contains(".")) {
+      extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    }
+    return "videos/" + UUID.randomUUID() + extension;
+  }
+
+  /**
+   * Превращает хранимые байты чанка в ответ: для PLAIN это открытые данные, которые шифруются
+   * здесь, для ENCRYPTED_SEGMENTS — готовый кадр [IV][шифротекст], который только разбирается.
+   */
+  private ChunkResponseDTO toChunkResponse(VideoStreamMetadata video, int chunkIndex, byte[] storedData) {
+    byte[] iv;
+    byte[] encryptedData;
+    if (video.isPreEncrypted()) {
+      int ivLength = video.getEncryptionMode().getIvLength();
+      iv = Arrays.copyOfRange(storedData, 0, ivLength);
+      encryptedData = Arrays.copyOfRange(storedData, ivLength, storedData.length);
+    } else {
+      iv = encryptionService.generateIv();
+      encryptedData = encryptionService.encrypt(storedData, video.getEncryptionKey(), iv);
+    }
+
+    return ChunkResponseDTO.builder()
+        .chunkIndex(chunkIndex)
+        .encryptedData(encryptedData)
+        .initializationVector(iv)
+        .isLastChunk(chunkIndex == video.getTotalChunks() - 1)
+        .build();
+  }
+
+  private InputStream openChunkSpan(VideoStreamMetadata video, int from, int to) {
+    long offset = storedOffset(video, from);
+    long end = storedOffset(video, to) + storedLength(video, to);
+    return minioStorageService.getVideoInputStream(storagePath(video), offset, end - offset);
+  }
+
+  private static String storagePath(VideoStreamMetadata video) {
+    return video.isPreEncrypted() ? video.getSegmentsPath() : video.getFilePath();
+  }
+
+  private static long storedOffset(VideoStreamMetadata video, int chunkIndex) {
+    if (video.isPreEncrypted()) {
+      return VideoSegmentService.frameOffset(video, chunkIndex);
+    }
+    return (long) chunkIndex * video.getChunkSize();
+  }
+
+  private static int storedLength(VideoStreamMetadata video, int chunkIndex) {
+    if (video.isPreEncrypted()) {
+      return VideoSegmentService.frameLength(video, chunkIndex);
+    }
+    long offset = (long) chunkIndex * video.getChunkSize();
+    return (int) Math.min(video.getChunkSize(), video.getFileSize() - offset);
+  }
+
+  private CompletableFuture<byte[]> readChunkAsync(VideoStreamMetadata video, int chunkIndex) {
+    return minioStorageService.readVideoRangeAsync(storagePath(video), storedOffset(video, chunkIndex),
+        storedLength(video, chunkIndex));
+  }
+
+  private byte[] readChunk(VideoStreamMetadata video, int chunkIndex) {
+    long offset = storedOffset(video, chunkIndex);
+    int length = storedLength(video, chunkIndex);
+
+    try (InputStream stream = minioStorageService.getVideoInputStream(storagePath(video), offset, length)) {
+      return readChunkData(stream, video, chunkIndex);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Читает чанк целиком: обрезанный ответ хранилища не должен попасть в кэш и в ответ.
+   */
+  private static byte[] readChunkData(InputStream stream, VideoStreamMetadata video, int chunkIndex)
+      throws IOException {
+    int length = storedLength(video, chunkIndex);
+    byte[] data = stream.readNBytes(length);
+    if (data.length < length) {
+      throw new IOException("Чанк " + chunkIndex + " видео " + video.getId() + " прочитан не полностью: "
+          + data.length + " из " + length + " байт");
+    }
+    return data;
+  }
+
+  private VideoStreamMetadata findMetadataById(Long id) {
+    return metadataCache.get(id, () -> VideoStreamMetadata.fromEntity(findVideoById(id)));
+  }
+
   private Video findVideoById(Long id) {
     return videoRepository.findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Видео с id " + id + " не найдено"));
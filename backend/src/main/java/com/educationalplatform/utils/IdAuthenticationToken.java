@@ -25,8 +25,16 @@ public class IdAuthenticationToken extends AbstractAuthenticationToken {
     return null; // пароля нет
   }
 
+  @Override
+  public String getName() {
+    if (principal instanceof JwtPrincipal jwt) {
+      return jwt.userId().toString();
+    }
+    return super.getName();
+  }
+
   @Override
   public Object getPrincipal() {
-    return principal; // возвращаем объект User
+    return principal; // JwtPrincipal из проверенного токена
   }
 }
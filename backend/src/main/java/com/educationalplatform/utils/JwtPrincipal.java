@@ -0,0 +1,11 @@
+package com.educationalplatform.utils;
+
+import com.educationalplatform.domain.model.User;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Claims of a verified access token. {@code role} is {@code null} for tokens issued without it.
+ */
+public record JwtPrincipal(UUID userId, User.Role role, Instant issuedAt, Instant expiresAt) {
+}
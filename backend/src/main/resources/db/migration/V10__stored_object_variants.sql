@@ -0,0 +1,3 @@
+ALTER TABLE stored_objects ADD COLUMN source_key VARCHAR(500);
+
+CREATE INDEX idx_stored_objects_source_key ON stored_objects (source_key);
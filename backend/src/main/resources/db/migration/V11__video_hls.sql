@@ -0,0 +1,4 @@
+ALTER TABLE videos
+    ADD COLUMN hls_path VARCHAR(500);
+
+COMMENT ON COLUMN videos.hls_path IS 'Префикс объектов HLS-версии (плейлист, init-сегмент и сегменты fMP4)';
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_vk_auth_states_created_at ON vk_auth_states (created_at);
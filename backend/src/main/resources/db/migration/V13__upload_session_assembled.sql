@@ -0,0 +1,5 @@
+ALTER TABLE upload_sessions DROP CONSTRAINT IF EXISTS check_upload_status_valid;
+ALTER TABLE upload_sessions
+    ADD CONSTRAINT check_upload_status_valid CHECK (status IN ('ACTIVE', 'COMPLETING', 'ASSEMBLED', 'COMPLETED'));
+
+COMMENT ON COLUMN upload_sessions.status IS 'ACTIVE — приём частей, COMPLETING — сборка объекта, ASSEMBLED — объект собран, видео ещё не создано, COMPLETED — видео создано';
@@ -0,0 +1,11 @@
+ALTER TABLE videos
+    ADD COLUMN storage_layout  VARCHAR(30) NOT NULL DEFAULT 'PLAIN',
+    ADD COLUMN encryption_mode VARCHAR(10),
+    ADD COLUMN segments_path   VARCHAR(500);
+
+ALTER TABLE videos
+    ADD CONSTRAINT check_storage_layout_valid CHECK (storage_layout IN ('PLAIN', 'ENCRYPTED_SEGMENTS'));
+
+COMMENT ON COLUMN videos.storage_layout IS 'Схема хранения: PLAIN — шифрование на лету, ENCRYPTED_SEGMENTS — чанки зашифрованы при загрузке';
+COMMENT ON COLUMN videos.encryption_mode IS 'Режим AES, которым зашифрованы сегменты (CBC, CTR, GCM)';
+COMMENT ON COLUMN videos.segments_path IS 'Путь к объекту с зашифрованными сегментами в MinIO';
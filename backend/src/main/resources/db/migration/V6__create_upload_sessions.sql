@@ -0,0 +1,32 @@
+CREATE TABLE IF NOT EXISTS upload_sessions
+(
+    id           UUID PRIMARY KEY,
+    owner_id     VARCHAR(64)  NOT NULL,
+    object_name  VARCHAR(500) NOT NULL UNIQUE,
+    upload_id    VARCHAR(255) NOT NULL,
+    title        VARCHAR(255) NOT NULL,
+    description  TEXT,
+    content_type VARCHAR(50),
+    file_size    BIGINT       NOT NULL,
+    part_size    INTEGER      NOT NULL,
+    total_parts  INTEGER      NOT NULL,
+    status       VARCHAR(20)  NOT NULL DEFAULT 'ACTIVE',
+    video_id     BIGINT REFERENCES videos (id) ON DELETE SET NULL,
+    created_at   TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at   TIMESTAMP    NOT NULL,
+    CONSTRAINT check_upload_file_size_positive CHECK (file_size > 0),
+    CONSTRAINT check_upload_part_size_positive CHECK (part_size > 0),
+    CONSTRAINT check_upload_total_parts_range CHECK (total_parts BETWEEN 1 AND 10000),
+    CONSTRAINT check_upload_status_valid CHECK (status IN ('ACTIVE', 'COMPLETING', 'COMPLETED'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_expires_at ON upload_sessions (expires_at);
+
+COMMENT ON TABLE upload_sessions IS 'Возобновляемые загрузки видео (multipart-загрузки MinIO)';
+COMMENT ON COLUMN upload_sessions.owner_id IS 'Пользователь, создавший сессию';
+COMMENT ON COLUMN upload_sessions.object_name IS 'Имя объекта видео в MinIO';
+COMMENT ON COLUMN upload_sessions.upload_id IS 'Идентификатор multipart-загрузки MinIO';
+COMMENT ON COLUMN upload_sessions.part_size IS 'Размер части в байтах (кроме последней)';
+COMMENT ON COLUMN upload_sessions.status IS 'ACTIVE — приём частей, COMPLETING — сборка объекта, COMPLETED — видео создано';
+COMMENT ON COLUMN upload_sessions.video_id IS 'Созданное видео после завершения загрузки';
+COMMENT ON COLUMN upload_sessions.expires_at IS 'Момент, после которого брошенная сессия отменяется';
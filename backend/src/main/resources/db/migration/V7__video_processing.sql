@@ -0,0 +1,12 @@
+ALTER TABLE videos
+    ADD COLUMN checksum_sha256     VARCHAR(64),
+    ADD COLUMN processing_attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN processing_error    VARCHAR(1000),
+    ADD COLUMN next_attempt_at     TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_videos_pending ON videos (next_attempt_at) WHERE status = 'PENDING';
+
+COMMENT ON COLUMN videos.checksum_sha256 IS 'SHA-256 исходного файла (hex)';
+COMMENT ON COLUMN videos.processing_attempts IS 'Число неудачных попыток обработки';
+COMMENT ON COLUMN videos.processing_error IS 'Ошибка последней неудачной попытки обработки';
+COMMENT ON COLUMN videos.next_attempt_at IS 'Не раньше этого момента видео будет снова взято в обработку';
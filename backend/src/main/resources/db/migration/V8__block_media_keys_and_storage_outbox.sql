@@ -0,0 +1,15 @@
+ALTER TABLE blocks
+    ADD COLUMN image_key VARCHAR(500),
+    ADD COLUMN video_key VARCHAR(500);
+
+CREATE TABLE storage_outbox (
+                                id              BIGSERIAL PRIMARY KEY,
+                                object_key      VARCHAR(500) NOT NULL,
+                                due_at          TIMESTAMP    NOT NULL,
+                                attempts        INT          NOT NULL DEFAULT 0,
+                                last_error      VARCHAR(1000),
+                                created_at      TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_storage_outbox_due_at ON storage_outbox (due_at);
+CREATE INDEX idx_storage_outbox_object_key ON storage_outbox (object_key);
@@ -0,0 +1,7 @@
+CREATE TABLE stored_objects (
+                                object_key      VARCHAR(500) PRIMARY KEY,
+                                size            BIGINT       NOT NULL,
+                                content_type    VARCHAR(255),
+                                etag            VARCHAR(255),
+                                created_at      TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
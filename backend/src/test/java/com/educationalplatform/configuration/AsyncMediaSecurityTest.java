@@ -0,0 +1,266 @@
+package com.educationalplatform.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.educationalplatform.controllers.impl.BlockController;
+import com.educationalplatform.domain.dto.response.StoredFile;
+import com.educationalplatform.domain.model.Block;
+import com.educationalplatform.domain.model.StoredObject;
+import com.educationalplatform.domain.model.User;
+import com.educationalplatform.filter.JwtCookieAuthenticationFilter;
+import com.educationalplatform.service.BlockService;
+import com.educationalplatform.service.JwtService;
+import com.educationalplatform.service.UserService;
+import com.educationalplatform.service.VerifiedTokenCache;
+import com.educationalplatform.streamingservice.controller.VideoController;
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import com.educationalplatform.streamingservice.model.dto.ChunkResponseDTO;
+import com.educationalplatform.streamingservice.service.HlsService;
+import com.educationalplatform.streamingservice.service.MinioStorageService;
+import com.educationalplatform.streamingservice.service.VideoRangeService;
+import com.educationalplatform.streamingservice.service.VideoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Media endpoints answer through an async re-dispatch, which the JWT filter does not see again:
+ * the request has to stay authorized on that second pass.
+ */
+@WebMvcTest(controllers = {VideoController.class, BlockController.class})
+@Import({SecurityConfiguration.class, JwtCookieAuthenticationFilter.class, JwtService.class,
+    VerifiedTokenCache.class, AsyncMediaSecurityTest.Metrics.class})
+@ActiveProfiles("test")
+class AsyncMediaSecurityTest {
+
+  @TestConfiguration
+  static class Metrics {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Autowired
+  private JwtService jwtService;
+
+  @Value("${jwt.name}")
+  private String jwtName;
+
+  @MockitoBean
+  private UserService userService;
+
+  @MockitoBean
+  private VideoService videoService;
+
+  @MockitoBean
+  private BlockService blockService;
+
+  private Cookie cookie;
+
+  @BeforeEach
+  void signIn() {
+    User user = User.builder()
+        .id(UUID.randomUUID())
+        .email("viewer@example.com")
+        .firstName("Test")
+        .lastName("Viewer")
+        .status(User.Status.ACTIVE)
+        .role(User.Role.USER)
+        .build();
+    when(userService.findCachedById(user.getId())).thenReturn(Optional.of(user));
+    cookie = new Cookie(jwtName, jwtService.generateToken(user));
+  }
+
+  @Test
+  void videoChunkIsServedToAuthenticatedViewer() throws Exception {
+    ChunkResponseDTO chunk = ChunkResponseDTO.builder()
+        .chunkIndex(0)
+        .encryptedData(new byte[] {1, 2, 3})
+        .initializationVector(new byte[16])
+        .isLastChunk(true)
+        .build();
+    when(videoService.getEncryptedChunk(eq(1L), eq(0), anyString()))
+        .thenReturn(CompletableFuture.completedFuture(chunk));
+
+    MvcResult started = mvc.perform(get("/api/v1/videos/1/stream/0")
+            .cookie(cookie)
+            .accept(MediaType.APPLICATION_OCTET_STREAM))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().bytes(new byte[] {1, 2, 3}));
+  }
+
+  @Test
+  void chunkBatchIsStreamedToAuthenticatedViewer() throws Exception {
+    StreamingResponseBody frames = out -> out.write(new byte[] {4, 5, 6});
+    when(videoService.streamChunkBatch(eq(1L), eq(0), eq(1), anyString()))
+        .thenReturn(ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(frames));
+
+    MvcResult result = complete(mvc.perform(get("/api/v1/videos/1/stream?from=0&to=1").cookie(cookie))
+        .andExpect(request().asyncStarted())
+        .andReturn());
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(new byte[] {4, 5, 6});
+  }
+
+  @Test
+  void hlsPlaylistIsStreamedToAuthenticatedViewer() throws Exception {
+    byte[] playlist = "#EXTM3U\n#EXT-X-ENDLIST\n".getBytes(StandardCharsets.UTF_8);
+    MinioStorageService storage = mock(MinioStorageService.class);
+    when(storage.getVideoInputStream("videos/1.mp4.hls/index.m3u8")).thenReturn(new ByteArrayInputStream(playlist));
+    VideoStreamMetadata video = VideoStreamMetadata.builder().id(1L).hlsPath("videos/1.mp4.hls").build();
+    HlsService hlsService = new HlsService(storage);
+    when(videoService.streamHls(eq(1L), eq(HlsService.PLAYLIST), eq(HlsService.PLAYLIST_TYPE), any()))
+        .thenAnswer(invocation -> hlsService.buildResponse(video, HlsService.PLAYLIST, HlsService.PLAYLIST_TYPE,
+            invocation.getArgument(3)));
+
+    MvcResult result = complete(mvc.perform(get("/api/v1/videos/1/hls/index.m3u8").cookie(cookie))
+        .andExpect(request().asyncStarted())
+        .andReturn());
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    assertThat(result.getResponse().getContentType()).isEqualTo(HlsService.PLAYLIST_TYPE.toString());
+    assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(playlist);
+  }
+
+  @Test
+  void blockImageIsServedToAuthenticatedUser() throws Exception {
+    byte[] image = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    StoredObject object = StoredObject.builder()
+        .objectKey("blocks/1/image.jpg")
+        .size((long) image.length)
+        .contentType(MediaType.IMAGE_JPEG_VALUE)
+        .etag("abc")
+        .createdAt(LocalDateTime.now())
+        .build();
+    when(blockService.getBlockImage(eq(1L), any(), any(), anyLong()))
+        .thenReturn(CompletableFuture.completedFuture(new StoredFile(object, new ByteArrayInputStream(image))));
+
+    MvcResult result = complete(mvc.perform(get("/api/blocks/1/image").cookie(cookie))
+        .andExpect(request().asyncStarted())
+        .andReturn());
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(image);
+  }
+
+  @Test
+  void versionedImageIsImmutableOnlyForCurrentVersionAndRequestedVariant() throws Exception {
+    String originalKey = "blocks/1/image.jpg";
+    String version = Block.imageVersion(originalKey);
+    StoredObject original = StoredObject.builder().objectKey(originalKey).size(3L).etag("a").build();
+    StoredObject variant = StoredObject.builder()
+        .objectKey(originalKey + "@w320")
+        .sourceKey(originalKey)
+        .size(3L)
+        .etag("b")
+        .build();
+
+    assertThat(imageCacheControl(variant, "?w=320&v=" + version)).contains("immutable");
+    assertThat(imageCacheControl(original, "?v=" + version)).contains("immutable");
+    // No variant could be produced, so the original was served under the thumbnail URL
+    assertThat(imageCacheControl(original, "?w=320&v=" + version)).contains("no-cache");
+    assertThat(imageCacheControl(variant, "?w=320&v=0000000000000000")).contains("no-cache");
+    assertThat(imageCacheControl(original, "")).contains("no-cache");
+  }
+
+  private String imageCacheControl(StoredObject served, String query) throws Exception {
+    when(blockService.getBlockImage(eq(1L), any(), any(), anyLong()))
+        .thenReturn(CompletableFuture.completedFuture(
+            new StoredFile(served, new ByteArrayInputStream(new byte[3]))));
+    MvcResult result = complete(mvc.perform(get("/api/blocks/1/image" + query).cookie(cookie))
+        .andExpect(request().asyncStarted())
+        .andReturn());
+    assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    return result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL);
+  }
+
+  @Test
+  void videoRangeIsStreamedToAuthenticatedViewer() throws Exception {
+    byte[] file = new byte[100];
+    for (int i = 0; i < file.length; i++) {
+      file[i] = (byte) i;
+    }
+    MinioStorageService storage = mock(MinioStorageService.class);
+    when(storage.getVideoInputStream(eq("videos/1.mp4"), anyLong(), anyLong())).thenAnswer(invocation ->
+        new ByteArrayInputStream(file, (int) (long) invocation.getArgument(1), (int) (long) invocation.getArgument(2)));
+    VideoStreamMetadata video = VideoStreamMetadata.builder()
+        .id(1L)
+        .title("lecture")
+        .filePath("videos/1.mp4")
+        .fileSize(file.length)
+        .mimeType("video/mp4")
+        .build();
+    VideoRangeService rangeService = new VideoRangeService(storage);
+    when(videoService.streamVideo(eq(1L), any()))
+        .thenAnswer(invocation -> rangeService.buildResponse(video, invocation.getArgument(1)));
+
+    MvcResult result = complete(mvc.perform(get("/api/v1/videos/1/stream")
+            .cookie(cookie)
+            .header(HttpHeaders.RANGE, "bytes=10-19"))
+        .andExpect(request().asyncStarted())
+        .andReturn());
+
+    assertThat(result.getResponse().getStatus()).isEqualTo(206);
+    assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-19/100");
+    assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(file, 10, 20));
+  }
+
+  @Test
+  void mediaRequiresAuthentication() throws Exception {
+    mvc.perform(get("/api/blocks/1/image")).andExpect(status().isForbidden());
+  }
+
+  /**
+   * Runs every async re-dispatch of the request, as the servlet container would.
+   */
+  private MvcResult complete(MvcResult result) throws Exception {
+    while (result.getRequest().isAsyncStarted()) {
+      result = mvc.perform(asyncDispatch(result)).andReturn();
+    }
+    return result;
+  }
+}
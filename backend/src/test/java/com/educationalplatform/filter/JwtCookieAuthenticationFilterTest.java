@@ -0,0 +1,81 @@
+package com.educationalplatform.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.domain.model.User;
+import com.educationalplatform.service.JwtService;
+import com.educationalplatform.service.UserService;
+import com.educationalplatform.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtCookieAuthenticationFilterTest {
+
+  private static final String COOKIE = "jwt_token";
+  private static final String SECRET = "53A73E5F1C4E0A2D3B5F2D784E6A1B423D6F247D1F6E5C3A596D635A75327855";
+
+  private final JwtService jwtService = new JwtService(SECRET, 3_600_000L);
+  private final UserService userService = mock(UserService.class);
+  private final JwtCookieAuthenticationFilter filter = new JwtCookieAuthenticationFilter(
+      jwtService, new VerifiedTokenCache(100, 300, new SimpleMeterRegistry()), userService);
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void roleComesFromUserRowNotFromToken() throws Exception {
+    User user = user(User.Role.ADMIN, User.Status.ACTIVE);
+    String token = jwtService.generateToken(user);
+    user.setRole(User.Role.USER);
+    when(userService.findCachedById(user.getId())).thenReturn(Optional.of(user));
+
+    filter(token);
+
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+        .containsExactly("ROLE_USER");
+  }
+
+  @Test
+  void blockedUserIsNotAuthenticated() throws Exception {
+    User user = user(User.Role.USER, User.Status.BLOCKED);
+    when(userService.findCachedById(user.getId())).thenReturn(Optional.of(user));
+
+    filter(jwtService.generateToken(user));
+
+    assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+  }
+
+  private void filter(String token) throws Exception {
+    ReflectionTestUtils.setField(filter, "jwtName", COOKIE);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/blocks");
+    request.setCookies(new Cookie(COOKIE, token));
+    filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+  }
+
+  private static User user(User.Role role, User.Status status) {
+    return User.builder()
+        .id(UUID.randomUUID())
+        .email("user@example.com")
+        .firstName("Test")
+        .lastName("User")
+        .role(role)
+        .status(status)
+        .build();
+  }
+}
@@ -0,0 +1,121 @@
+package com.educationalplatform.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.configuration.WebClientConfiguration;
+import com.educationalplatform.domain.model.User;
+import com.educationalplatform.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * The VK client against a local server through {@code vk.api-base-url}: read timeout and bulkhead.
+ */
+class AuthServiceVkClientTest {
+
+  private static final String SECRET = "53A73E5F1C4E0A2D3B5F2D784E6A1B423D6F247D1F6E5C3A596D635A75327855";
+  private static final String TOKEN_RESPONSE = "{\"access_token\":\"vk-token\",\"user_id\":42}";
+
+  private final MockWebServer server = new MockWebServer();
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final VkAuthStateStore stateStore = mock(VkAuthStateStore.class);
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server.start();
+    when(stateStore.take(anyString())).thenReturn(Optional.of("verifier"));
+    when(userRepository.findByVkId(42L)).thenReturn(Optional.of(User.builder()
+        .id(UUID.randomUUID())
+        .vkId(42L)
+        .role(User.Role.USER)
+        .build()));
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  void exchangesCodeAtConfiguredBaseUrl() throws Exception {
+    server.enqueue(json(TOKEN_RESPONSE));
+
+    ResponseCookie cookie = authService(restTemplate(2000, 4)).handleCallback("code", "state", null);
+
+    assertThat(cookie.getName()).isEqualTo("jwt_token");
+    RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+    assertThat(request.getPath()).isEqualTo(AuthService.TOKEN_PATH);
+  }
+
+  @Test
+  void slowResponseFailsWithinReadTimeout() {
+    server.enqueue(json(TOKEN_RESPONSE).setHeadersDelay(2, TimeUnit.SECONDS));
+    AuthService authService = authService(restTemplate(200, 4));
+
+    long started = System.nanoTime();
+    assertThatThrownBy(() -> authService.handleCallback("code", "state", null))
+        .isInstanceOf(ResourceAccessException.class);
+    assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+  }
+
+  @Test
+  void callBeyondConcurrencyLimitIsRejected() throws Exception {
+    server.enqueue(json(TOKEN_RESPONSE).setHeadersDelay(1, TimeUnit.SECONDS));
+    AuthService authService = authService(restTemplate(5000, 1));
+
+    CompletableFuture<ResponseCookie> first =
+        CompletableFuture.supplyAsync(() -> authService.handleCallback("code", "state", null));
+    // The second call starts once the first one holds the only permit
+    server.takeRequest(1, TimeUnit.SECONDS);
+
+    assertThatThrownBy(() -> authService.handleCallback("code", "state", null))
+        .isInstanceOf(ResourceAccessException.class)
+        .hasMessageContaining("Too many concurrent vk calls");
+    assertThat(first.get(5, TimeUnit.SECONDS).getName()).isEqualTo("jwt_token");
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  private AuthService authService(RestTemplate restTemplate) {
+    AuthService authService = new AuthService(stateStore, userRepository, new JwtService(SECRET, 3_600_000L),
+        restTemplate);
+    ReflectionTestUtils.setField(authService, "jwtName", "jwt_token");
+    ReflectionTestUtils.setField(authService, "keyExpiration", 3_600_000L);
+    ReflectionTestUtils.setField(authService, "appId", "1");
+    ReflectionTestUtils.setField(authService, "appSecret", "secret");
+    ReflectionTestUtils.setField(authService, "redirectUri", "https://localhost/api/auth/vkCallback");
+    ReflectionTestUtils.setField(authService, "apiBaseUrl", server.url("").toString().replaceAll("/$", ""));
+    return authService;
+  }
+
+  private static RestTemplate restTemplate(long readTimeoutMillis, int maxConcurrentCalls) {
+    return new WebClientConfiguration().restTemplate(new RestTemplateBuilder(), new SimpleMeterRegistry(), 1000,
+        readTimeoutMillis, maxConcurrentCalls, 50);
+  }
+
+  private static MockResponse json(String body) {
+    return new MockResponse()
+        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .setBody(body);
+  }
+}
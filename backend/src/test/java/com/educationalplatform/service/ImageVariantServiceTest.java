@@ -0,0 +1,66 @@
+package com.educationalplatform.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.domain.model.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Originals that fail to decode are remembered and served as they are without another attempt.
+ */
+class ImageVariantServiceTest {
+
+  /**
+   * PNG signature followed by a truncated IHDR chunk: a reader is found, reading the size fails.
+   */
+  private static final byte[] BROKEN_PNG = {
+      (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R', 0, 0};
+
+  private final FileStorageService fileStorageService = mock(FileStorageService.class);
+  private final StoredObjectService storedObjectService = mock(StoredObjectService.class);
+  private ImageVariantService service;
+
+  @BeforeEach
+  void setUp() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    service = new ImageVariantService(fileStorageService, storedObjectService,
+        new ImageVariantCache(1024 * 1024, registry), registry,
+        new int[] {320}, 1024 * 1024, 1_000_000, 0.8f, 1, 4);
+    when(storedObjectService.find(anyString())).thenReturn(Optional.empty());
+    when(fileStorageService.getFile("images/broken.png"))
+        .thenAnswer(invocation -> new ByteArrayInputStream(BROKEN_PNG));
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdown();
+  }
+
+  @Test
+  void decodeFailureIsNotRetried() throws Exception {
+    StoredObject original = StoredObject.builder()
+        .objectKey("images/broken.png")
+        .size((long) BROKEN_PNG.length)
+        .contentType("image/png")
+        .build();
+
+    assertThat(service.getVariant(original, 320).get(5, TimeUnit.SECONDS)).isNull();
+    assertThat(service.getVariant(original, 320).get(5, TimeUnit.SECONDS)).isNull();
+
+    verify(fileStorageService, times(1)).getFile("images/broken.png");
+    verify(storedObjectService, never()).registerDerived(any());
+  }
+}
@@ -0,0 +1,55 @@
+package com.educationalplatform.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.domain.model.Block;
+import com.educationalplatform.domain.model.StoredObject;
+import com.educationalplatform.repository.BlockRepository;
+import com.educationalplatform.repository.StoredObjectRepository;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Image keys of blocks the startup indexing missed are found on first read and recorded.
+ */
+class StoredObjectServiceTest {
+
+  private static final String KEY = "blocks/5/image-legacy.png";
+
+  private final StoredObjectRepository storedObjectRepository = mock(StoredObjectRepository.class);
+  private final BlockRepository blockRepository = mock(BlockRepository.class);
+  private final FileStorageService fileStorageService = mock(FileStorageService.class);
+  private final StoredObjectService service =
+      new StoredObjectService(storedObjectRepository, blockRepository, fileStorageService);
+
+  @Test
+  void resolvesAndRecordsLegacyImageKey() {
+    Block block = Block.builder().id(5L).hasImage(true).build();
+    StoredObject object = StoredObject.builder().objectKey(KEY).size(10L).build();
+    when(fileStorageService.findBlockImageKey(5L)).thenReturn(KEY);
+    when(storedObjectRepository.findById(KEY)).thenReturn(Optional.empty());
+    when(fileStorageService.statFile(KEY)).thenReturn(object);
+    when(storedObjectRepository.save(object)).thenReturn(object);
+
+    assertThat(service.resolveLegacyImageKey(block)).isEqualTo(KEY);
+
+    verify(blockRepository).setImageKeyIfAbsent(5L, KEY);
+    assertThat(service.find(KEY)).contains(object);
+  }
+
+  @Test
+  void blockWithoutImageIsNotLookedUp() {
+    Block block = Block.builder().id(6L).hasImage(false).build();
+
+    assertThat(service.resolveLegacyImageKey(block)).isNull();
+
+    verify(fileStorageService, never()).findBlockImageKey(anyLong());
+    verify(blockRepository, never()).setImageKeyIfAbsent(anyLong(), any());
+  }
+}
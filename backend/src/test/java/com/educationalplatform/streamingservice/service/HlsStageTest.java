@@ -0,0 +1,209 @@
+package com.educationalplatform.streamingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import com.educationalplatform.streamingservice.model.enums.VideoFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Упаковка синтетического MP4 (одна видеодорожка, {@code moov} после {@code mdat}) и отдача
+ * результата через {@link HlsService}.
+ */
+class HlsStageTest {
+
+  private static final String FILE_PATH = "videos/lecture.mp4";
+  private static final int TIMESCALE = 1000;
+  private static final int SAMPLE_COUNT = 10;
+  private static final int KEYFRAME_INTERVAL = 3;
+
+  private final Map<String, byte[]> objects = new HashMap<>();
+  private MinioStorageService storage;
+
+  @BeforeEach
+  void setUp() {
+    storage = mock(MinioStorageService.class);
+    when(storage.getVideoInputStream(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+      byte[] object = objects.get(invocation.<String>getArgument(0));
+      long offset = invocation.getArgument(1);
+      long length = invocation.getArgument(2);
+      return new ByteArrayInputStream(object, (int) offset, (int) Math.min(length, object.length - offset));
+    });
+    when(storage.getVideoInputStream(anyString())).thenAnswer(invocation ->
+        new ByteArrayInputStream(objects.get(invocation.<String>getArgument(0))));
+    when(storage.uploadStream(any(), anyLong(), anyString(), anyString())).thenAnswer(invocation -> {
+      try (InputStream in = invocation.getArgument(0)) {
+        objects.put(invocation.getArgument(3), in.readAllBytes());
+      }
+      return invocation.getArgument(3);
+    });
+  }
+
+  @Test
+  void packagesMp4AndServesPlaylistAndSegments() throws Exception {
+    byte[] file = movie();
+    objects.put(FILE_PATH, file);
+    Video video = Video.builder()
+        .id(1L)
+        .filePath(FILE_PATH)
+        .fileSize((long) file.length)
+        .chunkSize(file.length)
+        .totalChunks(1)
+        .format(VideoFormat.MP4)
+        .build();
+
+    new HlsStage(storage, new Mp4BoxReader(storage), true, 2, 64 * 1024 * 1024).process(video);
+
+    assertThat(video.getHlsPath()).isEqualTo(FILE_PATH + ".hls");
+    HlsService hlsService = new HlsService(storage);
+    VideoStreamMetadata metadata = VideoStreamMetadata.fromEntity(video);
+
+    // Ключевые кадры 0, 3, 6, 9 по секунде на кадр: сегменты по 3 с и последний в 1 с
+    String playlist = new String(serve(hlsService, metadata, HlsService.PLAYLIST), StandardCharsets.UTF_8);
+    assertThat(playlist).isEqualTo("""
+        #EXTM3U
+        #EXT-X-VERSION:7
+        #EXT-X-TARGETDURATION:3
+        #EXT-X-MEDIA-SEQUENCE:0
+        #EXT-X-PLAYLIST-TYPE:VOD
+        #EXT-X-INDEPENDENT-SEGMENTS
+        #EXT-X-MAP:URI="init.mp4"
+        #EXTINF:3.000000,
+        0.m4s
+        #EXTINF:3.000000,
+        1.m4s
+        #EXTINF:3.000000,
+        2.m4s
+        #EXTINF:1.000000,
+        3.m4s
+        #EXT-X-ENDLIST
+        """);
+
+    byte[] init = serve(hlsService, metadata, HlsService.INIT_SEGMENT);
+    assertThat(type(init, 0)).isEqualTo("ftyp");
+    assertThat(new String(init, StandardCharsets.US_ASCII)).contains("moov", "mvex", "trex", "avc1");
+
+    ByteBuffer segment = ByteBuffer.wrap(serve(hlsService, metadata, HlsService.segmentName(1)));
+    int moofSize = segment.getInt(0);
+    assertThat(type(segment.array(), 0)).isEqualTo("moof");
+    assertThat(segment.getInt(20)).as("mfhd sequence_number").isEqualTo(2);
+    // traf: tfhd (16) и tfdt версии 1 с временем декодирования первого сэмпла
+    assertThat(type(segment.array(), 24 + 8 + 16)).isEqualTo("tfdt");
+    assertThat(segment.getLong(24 + 8 + 16 + 12)).isEqualTo(3L * TIMESCALE);
+    assertThat(type(segment.array(), moofSize)).isEqualTo("mdat");
+    byte[] mdat = Arrays.copyOfRange(segment.array(), moofSize + 8, segment.capacity());
+    assertThat(mdat).isEqualTo(concat(sample(3), sample(4), sample(5)));
+  }
+
+  private static byte[] serve(HlsService hlsService, VideoStreamMetadata metadata, String fileName)
+      throws Exception {
+    ResponseEntity<StreamingResponseBody> response =
+        hlsService.buildResponse(metadata, fileName, HlsService.SEGMENT_TYPE, new HttpHeaders());
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+    return out.toByteArray();
+  }
+
+  /**
+   * ftyp, mdat с сэмплами подряд и moov в конце файла, как у записи без faststart.
+   */
+  private static byte[] movie() {
+    byte[] ftyp = box("ftyp", ascii("isom"), ints(512), ascii("isom"), ascii("mp41"));
+    byte[][] samples = new byte[SAMPLE_COUNT][];
+    int[] sizes = new int[SAMPLE_COUNT];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      samples[i] = sample(i);
+      sizes[i] = samples[i].length;
+    }
+    byte[] mdat = box("mdat", samples);
+    int firstSampleOffset = ftyp.length + 8;
+
+    int[] sizeTable = new int[2 + SAMPLE_COUNT];
+    sizeTable[1] = SAMPLE_COUNT;
+    System.arraycopy(sizes, 0, sizeTable, 2, SAMPLE_COUNT);
+    int[] syncTable = new int[1 + (SAMPLE_COUNT + KEYFRAME_INTERVAL - 1) / KEYFRAME_INTERVAL];
+    syncTable[0] = syncTable.length - 1;
+    for (int i = 1; i < syncTable.length; i++) {
+      syncTable[i] = (i - 1) * KEYFRAME_INTERVAL + 1;
+    }
+
+    byte[] stbl = box("stbl",
+        fullBox("stsd", ints(1), box("avc1", new byte[78])),
+        fullBox("stts", ints(1, SAMPLE_COUNT, TIMESCALE)),
+        fullBox("stss", ints(syncTable)),
+        fullBox("stsz", ints(sizeTable)),
+        fullBox("stsc", ints(1, 1, SAMPLE_COUNT, 1)),
+        fullBox("stco", ints(1, firstSampleOffset)));
+    byte[] trak = box("trak",
+        fullBox("tkhd", ints(0, 0, 1, 0, SAMPLE_COUNT * TIMESCALE), new byte[60]),
+        box("mdia",
+            fullBox("mdhd", ints(0, 0, TIMESCALE, SAMPLE_COUNT * TIMESCALE, 0)),
+            fullBox("hdlr", ints(0), ascii("vide"), new byte[13]),
+            box("minf", fullBox("vmhd", new byte[8]), stbl)));
+    byte[] moov = box("moov", fullBox("mvhd", ints(0, 0, TIMESCALE, SAMPLE_COUNT * TIMESCALE), new byte[80]), trak);
+    return concat(ftyp, mdat, moov);
+  }
+
+  private static byte[] sample(int index) {
+    byte[] data = new byte[10 + index];
+    Arrays.fill(data, (byte) index);
+    return data;
+  }
+
+  private static byte[] fullBox(String type, byte[]... payload) {
+    byte[][] children = new byte[payload.length + 1][];
+    children[0] = ints(0);
+    System.arraycopy(payload, 0, children, 1, payload.length);
+    return box(type, children);
+  }
+
+  private static byte[] box(String type, byte[]... payload) {
+    byte[] content = concat(payload);
+    return ByteBuffer.allocate(8 + content.length).putInt(8 + content.length).put(ascii(type)).put(content).array();
+  }
+
+  private static byte[] concat(byte[]... parts) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] part : List.of(parts)) {
+      out.writeBytes(part);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] ints(int... values) {
+    ByteBuffer out = ByteBuffer.allocate(4 * values.length);
+    for (int value : values) {
+      out.putInt(value);
+    }
+    return out.array();
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static String type(byte[] data, int boxOffset) {
+    return new String(data, boxOffset + 4, 4, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,40 @@
+package com.educationalplatform.streamingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.model.enums.VideoFormat;
+import com.educationalplatform.streamingservice.service.Mp4BoxReader.Box;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class MetadataStageTest {
+
+  private static final String PATH = "videos/lecture.mp4";
+
+  @Test
+  void recordsDurationAndKeepsUploadChunkSize() throws Exception {
+    Video video = Video.builder()
+        .id(1L)
+        .filePath(PATH)
+        .fileSize(1_000_000L)
+        .format(VideoFormat.MP4)
+        .chunkSize(262_144)
+        .totalChunks(4)
+        .build();
+    // mvhd версии 0: timescale 1000, длительность 90,5 с
+    byte[] mvhd = ByteBuffer.allocate(32).putInt(12, 1000).putInt(16, 90_500).array();
+    Mp4BoxReader boxReader = mock(Mp4BoxReader.class);
+    when(boxReader.findBox(PATH, 0, 1_000_000L, "moov")).thenReturn(new Box(100, 1_000));
+    when(boxReader.findBox(PATH, 100, 1_000, "mvhd")).thenReturn(new Box(108, 208));
+    when(boxReader.read(PATH, 108, 32)).thenReturn(mvhd);
+
+    new MetadataStage(boxReader).process(video);
+
+    assertThat(video.getDurationSeconds()).isEqualTo(91);
+    assertThat(video.getChunkSize()).isEqualTo(262_144);
+    assertThat(video.getTotalChunks()).isEqualTo(4);
+  }
+}
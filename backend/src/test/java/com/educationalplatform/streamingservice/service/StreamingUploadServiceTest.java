@@ -0,0 +1,54 @@
+package com.educationalplatform.streamingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.configuration.MinioMultipartClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.messages.Part;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Поток больше {@code video.upload.max-bytes} обрывается, а multipart-загрузка отменяется.
+ */
+class StreamingUploadServiceTest {
+
+  private static final int PART_SIZE = 5 * 1024 * 1024;
+
+  @Test
+  void abortsUploadExceedingLimit() {
+    MinioMultipartClient multipartClient = mock(MinioMultipartClient.class);
+    MinioStorageService storage = mock(MinioStorageService.class);
+    when(storage.getBucketName()).thenReturn("videos");
+    when(multipartClient.startUpload("videos", "videos/big.mp4", null))
+        .thenReturn(CompletableFuture.completedFuture("upload-1"));
+    when(multipartClient.uploadPart(anyString(), anyString(), anyString(), anyInt(), any(), anyInt()))
+        .thenAnswer(invocation -> CompletableFuture.completedFuture(new Part(invocation.getArgument(3), "etag")));
+    when(multipartClient.abortUpload("videos", "videos/big.mp4", "upload-1"))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    StreamingUploadService service = new StreamingUploadService(multipartClient, storage, new SimpleMeterRegistry(),
+        PART_SIZE, 2, 4, PART_SIZE + 1);
+
+    // Две полные части и третья неполная: лимит превышен на второй части
+    ByteArrayInputStream body = new ByteArrayInputStream(new byte[2 * PART_SIZE + 10]);
+
+    assertThatThrownBy(() -> service.upload(body, "videos/big.mp4", null))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Файл слишком большой");
+    verify(multipartClient, times(1)).uploadPart(anyString(), anyString(), anyString(), anyInt(), any(), anyInt());
+    verify(multipartClient).abortUpload("videos", "videos/big.mp4", "upload-1");
+    verify(multipartClient, never()).completeUpload(anyString(), anyString(), anyString(), any());
+    verify(storage, never()).uploadStream(any(), anyLong(), isNull(), anyString());
+  }
+}
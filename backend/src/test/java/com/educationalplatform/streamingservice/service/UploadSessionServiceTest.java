@@ -0,0 +1,107 @@
+package com.educationalplatform.streamingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.configuration.MinioMultipartClient;
+import com.educationalplatform.streamingservice.entity.UploadSession;
+import com.educationalplatform.streamingservice.model.dto.VideoDTO;
+import com.educationalplatform.streamingservice.model.enums.UploadSessionStatus;
+import com.educationalplatform.streamingservice.repository.UploadSessionRepository;
+import io.minio.messages.Part;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class UploadSessionServiceTest {
+
+  private static final String OWNER = "owner";
+
+  private final UploadSessionRepository repository = mock(UploadSessionRepository.class);
+  private final MinioMultipartClient multipartClient = mock(MinioMultipartClient.class);
+  private final VideoService videoService = mock(VideoService.class);
+  private final UploadSessionService service = new UploadSessionService(repository, multipartClient,
+      mock(MinioStorageService.class), mock(StreamingUploadService.class), videoService, 60);
+
+  @Test
+  void retryAfterFailedRegistrationRegistersAssembledObject() {
+    UploadSession session = UploadSession.builder()
+        .id(UUID.randomUUID())
+        .ownerId(OWNER)
+        .objectName("videos/lecture.mp4")
+        .uploadId("upload-1")
+        .title("lecture")
+        .fileSize(10L)
+        .partSize(10)
+        .totalParts(1)
+        .status(UploadSessionStatus.ACTIVE)
+        .build();
+    Part part = mock(Part.class);
+    when(part.partNumber()).thenReturn(1);
+    when(part.partSize()).thenReturn(10L);
+    when(repository.findById(session.getId())).thenReturn(Optional.of(session));
+    when(repository.transition(eq(session.getId()), any(), any(), any())).thenReturn(1);
+    when(multipartClient.listUploadedParts(any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(List.of(part)));
+    when(multipartClient.completeUpload(any(), any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(videoService.registerUploadedVideo(eq("videos/lecture.mp4"), anyLong(), any(), any(), any()))
+        .thenThrow(new IllegalStateException("база недоступна"))
+        .thenReturn(VideoDTO.builder().id(7L).build());
+
+    assertThatThrownBy(() -> service.completeSession(session.getId(), OWNER))
+        .isInstanceOf(IllegalStateException.class);
+    verify(repository).transition(eq(session.getId()), eq(UploadSessionStatus.COMPLETING),
+        eq(UploadSessionStatus.ASSEMBLED), any());
+
+    session.setStatus(UploadSessionStatus.ASSEMBLED);
+    VideoDTO video = service.completeSession(session.getId(), OWNER);
+
+    assertThat(video.getId()).isEqualTo(7L);
+    verify(multipartClient, times(1)).completeUpload(any(), any(), any(), any());
+    verify(repository).markCompleted(eq(session.getId()), eq(UploadSessionStatus.COMPLETED), eq(7L), any());
+  }
+
+  @Test
+  void failingSessionIsPostponedAndDoesNotBlockPurge() {
+    UploadSession stuck = UploadSession.builder()
+        .id(UUID.randomUUID())
+        .objectName("videos/stuck.mp4")
+        .uploadId("upload-1")
+        .status(UploadSessionStatus.ASSEMBLED)
+        .fileSize(10L)
+        .build();
+    UploadSession abandoned = UploadSession.builder()
+        .id(UUID.randomUUID())
+        .objectName("videos/abandoned.mp4")
+        .uploadId("upload-2")
+        .status(UploadSessionStatus.ACTIVE)
+        .build();
+    when(repository.findTop100ByExpiresAtBefore(any()))
+        .thenReturn(List.of(stuck, abandoned))
+        .thenReturn(List.of(stuck));
+    when(videoService.registerUploadedVideo(eq("videos/stuck.mp4"), anyLong(), any(), any(), any()))
+        .thenThrow(new IllegalStateException("база недоступна"));
+    when(multipartClient.abortUpload(any(), anyString(), anyString()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    doThrow(new IllegalStateException("extend")).when(repository)
+        .extend(eq(stuck.getId()), any(), any());
+
+    service.purgeExpiredSessions();
+
+    verify(repository).delete(abandoned);
+    verify(repository).extend(eq(stuck.getId()), eq(UploadSessionStatus.ASSEMBLED), any());
+    verify(repository, times(2)).findTop100ByExpiresAtBefore(any());
+  }
+}
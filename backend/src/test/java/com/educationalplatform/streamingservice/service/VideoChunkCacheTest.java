@@ -0,0 +1,39 @@
+package com.educationalplatform.streamingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import com.educationalplatform.streamingservice.model.enums.StorageLayout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Чтение, закончившееся после смены раскладки хранения, не попадает в ответы для новой раскладки.
+ */
+class VideoChunkCacheTest {
+
+  private final VideoChunkCache cache = new VideoChunkCache(true, 1024 * 1024, new SimpleMeterRegistry());
+
+  @Test
+  void lateLoadUnderOldLayoutIsNotServedAfterSwitch() {
+    VideoStreamMetadata plain = metadata(StorageLayout.PLAIN);
+    VideoStreamMetadata encrypted = metadata(StorageLayout.ENCRYPTED_SEGMENTS);
+    CompletableFuture<byte[]> load = new CompletableFuture<>();
+
+    CompletableFuture<byte[]> plainRead = cache.getOrLoadAsync(plain, 0, () -> load);
+    cache.invalidate(7L);
+    load.complete(new byte[] {1, 2, 3});
+
+    assertThat(plainRead.join()).containsExactly(1, 2, 3);
+    assertThat(cache.getIfPresent(encrypted, 0)).isNull();
+    assertThat(cache.getOrLoad(encrypted, 0, () -> new byte[] {9})).containsExactly(9);
+  }
+
+  private static VideoStreamMetadata metadata(StorageLayout layout) {
+    return VideoStreamMetadata.builder()
+        .id(7L)
+        .storageLayout(layout)
+        .build();
+  }
+}
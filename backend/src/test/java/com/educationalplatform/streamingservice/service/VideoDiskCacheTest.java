@@ -0,0 +1,71 @@
+package com.educationalplatform.streamingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Объект больше допустимого не скачивается в кэш и не запрашивается повторно.
+ */
+class VideoDiskCacheTest {
+
+  @TempDir
+  Path directory;
+
+  private VideoDiskCache cache;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    cache = new VideoDiskCache(true, directory.toString(), 4000, 4000, 0, 1, new SimpleMeterRegistry());
+    cache.loadIndex();
+  }
+
+  @AfterEach
+  void tearDown() {
+    cache.shutdown();
+  }
+
+  @Test
+  void skipsObjectsLargerThanQuarterOfCache() throws Exception {
+    AtomicInteger stats = new AtomicInteger();
+    AtomicInteger downloads = new AtomicInteger();
+
+    cache.populateAsync("videos/large.mp4", () -> {
+      stats.incrementAndGet();
+      return 1001;
+    }, () -> {
+      downloads.incrementAndGet();
+      return new ByteArrayInputStream(new byte[1001]);
+    });
+    await(() -> stats.get() == 1);
+    cache.populateAsync("videos/large.mp4", () -> stats.incrementAndGet(), InputStream::nullInputStream);
+
+    byte[] small = {1, 2, 3, 4};
+    cache.populateAsync("videos/small.mp4", () -> small.length, () -> new ByteArrayInputStream(small));
+    await(() -> cache.open("videos/small.mp4", 0, -1) != null);
+
+    assertThat(stats.get()).isEqualTo(1);
+    assertThat(downloads.get()).isZero();
+    assertThat(cache.open("videos/large.mp4", 0, -1)).isNull();
+    try (InputStream in = cache.open("videos/small.mp4", 1, 2)) {
+      assertThat(in.readAllBytes()).containsExactly(2, 3);
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertThat(System.currentTimeMillis()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+}
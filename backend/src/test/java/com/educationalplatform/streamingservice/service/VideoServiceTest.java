@@ -0,0 +1,107 @@
+package com.educationalplatform.streamingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.educationalplatform.streamingservice.entity.Video;
+import com.educationalplatform.streamingservice.mapper.VideoMapper;
+import com.educationalplatform.streamingservice.model.VideoStreamMetadata;
+import com.educationalplatform.streamingservice.model.enums.StorageLayout;
+import com.educationalplatform.streamingservice.repository.VideoRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@ExtendWith(MockitoExtension.class)
+class VideoServiceTest {
+
+  @Mock
+  private VideoRepository videoRepository;
+
+  @Mock
+  private VideoMapper videoMapper;
+
+  @Mock
+  private MinioStorageService minioStorageService;
+
+  @Mock
+  private MetadataStage metadataStage;
+
+  @Mock
+  private VideoEncryptionService encryptionService;
+
+  @Mock
+  private VideoProcessingService processingService;
+
+  @Spy
+  private ChunkSizePolicy chunkSizePolicy = new ChunkSizePolicy(262_144, 8_388_608, 512, 4);
+
+  @Mock
+  private VideoChunkCache chunkCache;
+
+  @Mock
+  private VideoMetadataCache metadataCache;
+
+  @Mock
+  private VideoReadAheadService readAheadService;
+
+  @InjectMocks
+  private VideoService videoService;
+
+  @Test
+  void batchFailsOnTruncatedChunkSpanAndDoesNotCacheIt() {
+    ReflectionTestUtils.setField(videoService, "maxBatchChunks", 16);
+    VideoStreamMetadata video = VideoStreamMetadata.builder()
+        .id(1L)
+        .filePath("videos/1.mp4")
+        .fileSize(30)
+        .chunkSize(10)
+        .totalChunks(3)
+        .storageLayout(StorageLayout.PLAIN)
+        .build();
+    when(metadataCache.get(eq(1L), any())).thenReturn(video);
+    // Хранилище оборвало ответ: вместо 30 байт пришло 5
+    when(minioStorageService.getVideoInputStream("videos/1.mp4", 0, 30))
+        .thenReturn(new ByteArrayInputStream(new byte[5]));
+
+    ResponseEntity<StreamingResponseBody> response = videoService.streamChunkBatch(1L, 0, 2, "viewer");
+
+    assertThatThrownBy(() -> response.getBody().writeTo(new ByteArrayOutputStream()))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("прочитан не полностью");
+    verify(chunkCache, never()).put(any(), anyInt(), any());
+  }
+
+  @Test
+  void registrationSizesChunksByDurationFromMoov() throws Exception {
+    when(videoRepository.findByFilePath("videos/2.mp4")).thenReturn(Optional.empty());
+    // 100 МБ за 100 с: 1 МБ/с, чанк на 4 с воспроизведения
+    when(metadataStage.readDurationSeconds("videos/2.mp4", 100_000_000L)).thenReturn(100);
+    when(videoRepository.save(any(Video.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    videoService.registerUploadedVideo("videos/2.mp4", 100_000_000L, "video/mp4", "Лекция", null);
+
+    ArgumentCaptor<Video> saved = ArgumentCaptor.forClass(Video.class);
+    verify(videoRepository).save(saved.capture());
+    assertThat(saved.getValue().getDurationSeconds()).isEqualTo(100);
+    assertThat(saved.getValue().getChunkSize()).isEqualTo(4_063_232);
+    assertThat(saved.getValue().getTotalChunks()).isEqualTo(25);
+  }
+}